@@ -0,0 +1,97 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the hot AttendanceDao lookups against silently falling back to full table scans.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AttendanceQueryPlanTest {
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+
+        AttendanceDao dao = db.attendanceDao();
+        long start = 1_700_000_000_000L;
+        for (int i = 0; i < 500; i++) {
+            AttendanceRecord record = new AttendanceRecord("Headquarters", start + i * 86_400_000L);
+            record.complete(record.checkInMillis + 8 * 3_600_000L);
+            record.synced = i % 10 != 0;
+            dao.insert(record);
+        }
+        dao.insert(new AttendanceRecord("Headquarters", start + 500 * 86_400_000L));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void activeRecordLookupUsesIndex() {
+        assertIndexedSearch(AttendanceDao.ACTIVE_RECORD_QUERY);
+    }
+
+    @Test
+    public void unsyncedCompletedLookupUsesIndex() {
+        assertIndexedSearch(AttendanceDao.UNSYNCED_COMPLETED_QUERY);
+    }
+
+    @Test
+    public void completedLookupUsesIndex() {
+        assertIndexedSearch(AttendanceDao.COMPLETED_QUERY);
+    }
+
+    @Test
+    public void keysetPageUsesPrimaryKey() {
+        assertIndexedSearch(AttendanceDao.RECORDS_BEFORE_QUERY, 250, AttendanceRecordsPager.PAGE_SIZE);
+        assertIndexedSearch(AttendanceDao.RECORDS_AFTER_QUERY, 250, AttendanceRecordsPager.PAGE_SIZE);
+    }
+
+    @Test
+    public void rangeLookupUsesIndex() {
+        assertIndexedSearch(AttendanceDao.RECORDS_BETWEEN_QUERY, 0L, Long.MAX_VALUE);
+    }
+
+    private void assertIndexedSearch(String query, Object... args) {
+        // Room's named parameters become positional bind args
+        String sql = "EXPLAIN QUERY PLAN " + query.replaceAll(":\\w+", "?");
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getReadableDatabase();
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = sqlite.query(sql, args)) {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailColumn));
+            }
+        }
+
+        boolean searchesTable = false;
+        for (String detail : details) {
+            if (detail.contains("attendance_records")) {
+                assertFalse("Full scan in plan " + details + " for " + query, detail.startsWith("SCAN"));
+                searchesTable |= detail.startsWith("SEARCH")
+                        && (detail.contains("INDEX") || detail.contains("PRIMARY KEY"));
+            }
+        }
+        assertTrue("No indexed search in plan " + details + " for " + query, searchesTable);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.geotracker;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the batched sync path against the local Firestore emulator
+ * ({@code firebase emulators:start --only firestore}); 10.0.2.2 is the host seen from the
+ * Android emulator.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreBatchSyncTest {
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int EMULATOR_PORT = 8080;
+    private static final String INSTALLATION_ID = "test-device";
+    private static boolean emulatorConfigured = false;
+
+    private AppDatabase db;
+    private FirebaseFirestore firestore;
+    private String userId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        firestore = FirebaseFirestore.getInstance();
+        if (!emulatorConfigured) {
+            // useEmulator() must run before the instance is first used
+            firestore.useEmulator(EMULATOR_HOST, EMULATOR_PORT);
+            firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setPersistenceEnabled(false)
+                    .build());
+            emulatorConfigured = true;
+        }
+        // Fresh user per run so documents from earlier runs do not affect the counts
+        userId = "emulator-" + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void syncNow_uploadsMoreThanOneBatchAndMarksEverythingSynced() throws Exception {
+        int count = FirestoreSyncHelper.MAX_BATCH_SIZE * 2 + 37;
+        insertCompletedRecords(count);
+
+        SyncResult result = new FirestoreSyncHelper(new FirestoreSyncTransport(firestore), db, INSTALLATION_ID).syncNow(OutboxEntry.LANE_EVENTS);
+
+        assertEquals(count, result.synced);
+        assertFalse(result.needsRetry());
+        assertTrue(db.attendanceDao().getUnsyncedCompletedRecords().isEmpty());
+        assertEquals(0, db.outboxDao().countAfter(OutboxEntry.LANE_EVENTS, 0));
+        assertEquals(count, remoteCount());
+    }
+
+    @Test
+    public void syncNow_secondRunUploadsNothing() throws Exception {
+        insertCompletedRecords(25);
+        FirestoreSyncHelper helper = new FirestoreSyncHelper(new FirestoreSyncTransport(firestore), db, INSTALLATION_ID);
+
+        assertEquals(25, helper.syncNow(OutboxEntry.LANE_EVENTS).synced);
+        assertEquals(0, helper.syncNow(OutboxEntry.LANE_EVENTS).synced);
+        assertEquals(25, remoteCount());
+    }
+
+    @Test
+    public void syncNow_reuploadAfterLostAckDoesNotDuplicate() throws Exception {
+        insertCompletedRecords(40);
+        FirestoreSyncHelper helper = new FirestoreSyncHelper(new FirestoreSyncTransport(firestore), db, INSTALLATION_ID);
+        assertEquals(40, helper.syncNow(OutboxEntry.LANE_EVENTS).synced);
+
+        // Simulate the app dying after the server write but before the local transaction:
+        // the entries are still pending and the records carry no document id
+        db.getOpenHelper().getWritableDatabase()
+                .execSQL("UPDATE attendance_records SET synced = 0, firestoreId = NULL");
+        db.getOpenHelper().getWritableDatabase()
+                .execSQL("INSERT INTO sync_outbox (recordId, op, createdAtMillis, lane) SELECT id, 'CHECK_OUT', 0, 'events' FROM attendance_records");
+
+        assertEquals(40, helper.syncNow(OutboxEntry.LANE_EVENTS).synced);
+        assertEquals(40, remoteCount());
+        AttendanceRecord first = db.attendanceDao().getRecord(1);
+        assertEquals(FirestoreSyncHelper.documentIdFor(first, INSTALLATION_ID), first.firestoreId);
+    }
+
+    @Test
+    public void syncNow_eventsLaneDoesNotWaitForBulkBacklog() throws Exception {
+        insertCompletedRecords(3);
+        db.runInTransaction(() -> {
+            for (int id = 1; id <= 3; id++) {
+                db.attendanceDao().setTrack(id, new byte[]{1, 2, 3}, 1);
+                AttendanceOutbox.append(db, id, OutboxEntry.OP_EDIT);
+            }
+        });
+        FirestoreSyncHelper helper = new FirestoreSyncHelper(new FirestoreSyncTransport(firestore), db, INSTALLATION_ID);
+
+        assertEquals(3, helper.syncNow(OutboxEntry.LANE_EVENTS).synced);
+        assertEquals(0, db.outboxDao().countAfter(OutboxEntry.LANE_EVENTS, 0));
+        assertEquals(3, db.outboxDao().countAfter(OutboxEntry.LANE_BULK, 0));
+
+        assertEquals(3, helper.syncNow(OutboxEntry.LANE_BULK).synced);
+        assertEquals(0, db.outboxDao().countAfter(OutboxEntry.LANE_BULK, 0));
+        assertEquals(3, remoteCount());
+    }
+
+    private void insertCompletedRecords(int count) {
+        long start = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            AttendanceRecord record = new AttendanceRecord("Headquarters", start + i * 86_400_000L);
+            record.userId = userId;
+            record.complete(record.checkInMillis + 8 * 3_600_000L);
+            db.runInTransaction(() -> {
+                record.id = (int) db.attendanceDao().insert(record);
+                AttendanceOutbox.append(db, record.id, OutboxEntry.OP_CHECK_OUT);
+            });
+        }
+    }
+
+    private int remoteCount() throws Exception {
+        QuerySnapshot snapshot = Tasks.await(firestore.collection("attendance")
+                .whereEqualTo("userId", userId)
+                .get(), 30, TimeUnit.SECONDS);
+        return snapshot.size();
+    }
+}
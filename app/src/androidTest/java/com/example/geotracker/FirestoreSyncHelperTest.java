@@ -0,0 +1,112 @@
+package com.example.geotracker;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+// Batching and rejection handling against an in-memory transport; no emulator needed
+@RunWith(AndroidJUnit4.class)
+public class FirestoreSyncHelperTest {
+    private static final String INSTALLATION_ID = "test-device";
+
+    private AppDatabase db;
+    private final RejectingTransport transport = new RejectingTransport();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void syncNow_oneRejectedRecordAmongManyGoodOnes_isDroppedAndBatchingRecovers() {
+        int count = FirestoreSyncHelper.MAX_BATCH_SIZE * 3;
+        insertCompletedRecords(count);
+        transport.rejectedRecordIds.add(42);
+
+        SyncResult result = new FirestoreSyncHelper(transport, db, INSTALLATION_ID).syncNow(OutboxEntry.LANE_EVENTS);
+
+        assertEquals(count - 1, result.synced);
+        assertEquals(1, result.failed);
+        // Dropped from the outbox, so there is nothing for a retry to send
+        assertFalse(result.needsRetry());
+        assertEquals(0, db.outboxDao().countAfter(OutboxEntry.LANE_EVENTS, 0));
+        assertEquals(1, db.attendanceDao().getUnsyncedCompletedRecords().size());
+        // Halving down to the bad record takes a handful of batches; after it the window is full
+        // again, rather than the remaining ~1450 records going up one at a time
+        assertTrue("batches: " + transport.acceptedBatchSizes, transport.acceptedBatchSizes.size() < 20);
+        assertEquals(FirestoreSyncHelper.MAX_BATCH_SIZE,
+                (int) transport.acceptedBatchSizes.get(transport.acceptedBatchSizes.size() - 2));
+    }
+
+    @Test
+    public void syncNow_unreachableBackend_needsRetry() {
+        insertCompletedRecords(10);
+        transport.unreachable = true;
+
+        SyncResult result = new FirestoreSyncHelper(transport, db, INSTALLATION_ID).syncNow(OutboxEntry.LANE_EVENTS);
+
+        assertTrue(result.aborted);
+        assertTrue(result.needsRetry());
+        assertEquals(10, db.outboxDao().countAfter(OutboxEntry.LANE_EVENTS, 0));
+    }
+
+    private void insertCompletedRecords(int count) {
+        long start = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            AttendanceRecord record = new AttendanceRecord("Headquarters", start + i * 86_400_000L);
+            record.userId = "user-1";
+            record.complete(record.checkInMillis + 8 * 3_600_000L);
+            db.runInTransaction(() -> {
+                record.id = (int) db.attendanceDao().insert(record);
+                AttendanceOutbox.append(db, record.id, OutboxEntry.OP_CHECK_OUT);
+            });
+        }
+    }
+
+    // Rejects, as a backend rule would, any batch holding one of rejectedRecordIds
+    private static class RejectingTransport implements SyncTransport {
+        final Set<Integer> rejectedRecordIds = new HashSet<>();
+        final List<Integer> acceptedBatchSizes = new ArrayList<>();
+        boolean unreachable;
+
+        @Override
+        public long upload(Map<String, AttendanceRecord> batch) throws SyncTransportException {
+            if (unreachable) {
+                throw new SyncTransportException("offline", "offline", true, null);
+            }
+            for (AttendanceRecord record : batch.values()) {
+                if (rejectedRecordIds.contains(record.id)) {
+                    throw new SyncTransportException("rejected " + record.id, "rejected", false, null);
+                }
+            }
+            acceptedBatchSizes.add(batch.size());
+            return batch.size();
+        }
+
+        @Override
+        public String name() {
+            return "rejecting";
+        }
+    }
+}
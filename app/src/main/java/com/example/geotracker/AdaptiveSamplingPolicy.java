@@ -0,0 +1,169 @@
+package com.example.geotracker;
+
+// Chooses how hard LocationForegroundService samples. At a desk deep inside the fence it steps
+// down to balanced and then low power; any movement, or a fix close to the fence edge, steps it
+// straight back to high accuracy. Exits themselves still come from the geofence transitions;
+// this only decides how dense the breadcrumb track is and how quickly the service can confirm
+// what the device is doing.
+//
+// Not thread-safe; call from the thread that receives location results.
+public class AdaptiveSamplingPolicy {
+
+    public enum Mode {
+        HIGH(5_000, 2_000, 0, 30_000),
+        BALANCED(30_000, 15_000, 10, 0),
+        LOW(60_000, 30_000, 25, 0);
+
+        public final long intervalMillis;
+        public final long fastestIntervalMillis;
+        public final float minDisplacementMeters;
+        // Batched delivery: fixes are collected and handed over at most this late (0 = one by
+        // one). Only HIGH batches; the slower modes already wake once per interval, and delaying
+        // them would stretch how long a step back up can take.
+        public final long maxUpdateDelayMillis;
+
+        Mode(long intervalMillis, long fastestIntervalMillis, float minDisplacementMeters, long maxUpdateDelayMillis) {
+            this.intervalMillis = intervalMillis;
+            this.fastestIntervalMillis = fastestIntervalMillis;
+            this.minDisplacementMeters = minDisplacementMeters;
+            this.maxUpdateDelayMillis = maxUpdateDelayMillis;
+        }
+    }
+
+    // Fixes within this distance of the anchor (or their accuracy, if worse) count as not moving
+    static final float STATIONARY_RADIUS_METERS = 25;
+    // Reported speed above a slow walk means moving, whatever the displacement says
+    static final float MOVING_SPEED_MPS = 1.0f;
+    static final long BALANCED_AFTER_MS = 2 * 60_000;
+    static final long LOW_AFTER_MS = 10 * 60_000;
+    // Within this distance of the fence edge, always sample at high accuracy
+    static final float EDGE_MARGIN_METERS = 50;
+    // A mode is only allowed if walking at this speed could not reach the edge within one of its
+    // intervals, so a slow mode never sleeps through the approach to an exit
+    static final float WALKING_SPEED_MPS = 1.5f;
+
+    private final double fenceLat;
+    private final double fenceLon;
+    private final double fenceRadius;
+    // When set, the edge is the outline rather than the circle
+    private final OfficeFootprint footprint;
+
+    private Mode mode = Mode.HIGH;
+    private long modeSince = -1;
+    private final long[] timeInMode = new long[Mode.values().length];
+
+    private boolean hasAnchor;
+    private double anchorLat;
+    private double anchorLon;
+    private long stationarySince;
+
+    // fenceRadius <= 0 when no fence is known; the edge rules are then skipped
+    public AdaptiveSamplingPolicy(double fenceLat, double fenceLon, double fenceRadius) {
+        this(fenceLat, fenceLon, fenceRadius, null);
+    }
+
+    public AdaptiveSamplingPolicy(double fenceLat, double fenceLon, double fenceRadius, OfficeFootprint footprint) {
+        this.fenceLat = fenceLat;
+        this.fenceLon = fenceLon;
+        this.fenceRadius = fenceRadius;
+        this.footprint = footprint;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // Feeds one fix and returns the mode to sample in from now on. accuracyMeters and speedMps
+    // may be NaN when the provider did not report them.
+    public Mode onFix(double lat, double lon, float accuracyMeters, float speedMps, long timeMillis) {
+        float accuracy = Float.isNaN(accuracyMeters) ? STATIONARY_RADIUS_METERS : accuracyMeters;
+
+        boolean moving;
+        if (!hasAnchor) {
+            moving = true;
+        } else {
+            double displacement = GeoMath.distanceMeters(anchorLat, anchorLon, lat, lon);
+            boolean fastEnough = !Float.isNaN(speedMps) && speedMps > MOVING_SPEED_MPS
+                    && accuracy <= STATIONARY_RADIUS_METERS;
+            moving = fastEnough || displacement > Math.max(STATIONARY_RADIUS_METERS, accuracy);
+        }
+        if (moving) {
+            hasAnchor = true;
+            anchorLat = lat;
+            anchorLon = lon;
+            stationarySince = timeMillis;
+        }
+
+        switchTo(decide(lat, lon, accuracy, moving, timeMillis), timeMillis);
+        return mode;
+    }
+
+    private Mode decide(double lat, double lon, float accuracy, boolean moving, long timeMillis) {
+        double edgeBudget = Double.POSITIVE_INFINITY;
+        if (fenceRadius > 0 || footprint != null) {
+            double edgeDistance = footprint != null
+                    ? footprint.distanceToBoundaryMeters(lat, lon)
+                    : Math.abs(GeoMath.distanceMeters(fenceLat, fenceLon, lat, lon) - fenceRadius);
+            edgeBudget = edgeDistance - accuracy;
+            if (edgeBudget < EDGE_MARGIN_METERS) {
+                if (accuracy > edgeDistance && mode == Mode.LOW) {
+                    // A coarse fix cannot tell where the edge is; get a better one before
+                    // paying for high accuracy
+                    return Mode.BALANCED;
+                }
+                return Mode.HIGH;
+            }
+        }
+        if (moving) {
+            return Mode.HIGH;
+        }
+
+        long stationaryFor = timeMillis - stationarySince;
+        if (stationaryFor >= LOW_AFTER_MS && fitsEdgeBudget(Mode.LOW, edgeBudget)) {
+            return Mode.LOW;
+        }
+        if (stationaryFor >= BALANCED_AFTER_MS && fitsEdgeBudget(Mode.BALANCED, edgeBudget)) {
+            return Mode.BALANCED;
+        }
+        return Mode.HIGH;
+    }
+
+    private static boolean fitsEdgeBudget(Mode candidate, double edgeBudgetMeters) {
+        return candidate.intervalMillis / 1000.0 * WALKING_SPEED_MPS <= edgeBudgetMeters;
+    }
+
+    private void switchTo(Mode next, long timeMillis) {
+        if (modeSince >= 0) {
+            timeInMode[mode.ordinal()] += Math.max(0, timeMillis - modeSince);
+        }
+        modeSince = timeMillis;
+        mode = next;
+    }
+
+    // Share of the session so far spent in each mode, for the duty-cycle log line
+    public String describeDutyCycle(long nowMillis) {
+        long[] totals = timeInMode.clone();
+        if (modeSince >= 0) {
+            totals[mode.ordinal()] += Math.max(0, nowMillis - modeSince);
+        }
+        long sum = 0;
+        for (long t : totals) {
+            sum += t;
+        }
+        StringBuilder out = new StringBuilder();
+        for (Mode m : Mode.values()) {
+            if (out.length() > 0) out.append(' ');
+            long percent = sum > 0 ? Math.round(100.0 * totals[m.ordinal()] / sum) : 0;
+            out.append(m).append('=').append(percent).append('%');
+        }
+        return out.toString();
+    }
+
+    long timeInModeMillis(Mode m, long nowMillis) {
+        long total = timeInMode[m.ordinal()];
+        if (m == mode && modeSince >= 0) {
+            total += Math.max(0, nowMillis - modeSince);
+        }
+        return total;
+    }
+}
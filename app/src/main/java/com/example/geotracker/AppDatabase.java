@@ -1,5 +1,6 @@
 package com.example.geotracker;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
@@ -8,9 +9,16 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import android.content.Context;
 
-@Database(entities = {AttendanceRecord.class}, version = 3, exportSchema = false)
+@Database(entities = {AttendanceRecord.class, LocationBreadcrumb.class, DailyRollup.class, WeeklyRollup.class,
+        OutboxEntry.class, SyncCursor.class, SyncRunMetric.class, Office.class, OfficeAccessPoint.class},
+        version = 15, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract AttendanceDao attendanceDao();
+    public abstract BreadcrumbDao breadcrumbDao();
+    public abstract RollupDao rollupDao();
+    public abstract OutboxDao outboxDao();
+    public abstract SyncMetricsDao syncMetricsDao();
+    public abstract OfficeDao officeDao();
 
     private static volatile AppDatabase INSTANCE;
 
@@ -21,6 +29,217 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // Replaces the "yyyy-MM-dd HH:mm:ss" text columns with epoch millis. The old strings were
+    // written in device-local time, so they are converted with the 'utc' modifier.
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS attendance_records_new (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "officeName TEXT NOT NULL, " +
+                    "checkInMillis INTEGER NOT NULL, " +
+                    "checkOutMillis INTEGER, " +
+                    "durationMillis INTEGER NOT NULL, " +
+                    "synced INTEGER NOT NULL, " +
+                    "firestoreId TEXT, " +
+                    "userId TEXT, " +
+                    "completed INTEGER NOT NULL)");
+            database.execSQL("INSERT INTO attendance_records_new " +
+                    "(id, officeName, checkInMillis, checkOutMillis, durationMillis, synced, firestoreId, userId, completed) " +
+                    "SELECT id, officeName, " +
+                    "COALESCE(CAST(strftime('%s', checkInTime, 'utc') AS INTEGER) * 1000, 0), " +
+                    "CAST(strftime('%s', checkOutTime, 'utc') AS INTEGER) * 1000, " +
+                    "0, synced, firestoreId, userId, completed FROM attendance_records");
+            database.execSQL("UPDATE attendance_records_new SET durationMillis = MAX(0, checkOutMillis - checkInMillis) " +
+                    "WHERE checkOutMillis IS NOT NULL");
+            database.execSQL("DROP TABLE attendance_records");
+            database.execSQL("ALTER TABLE attendance_records_new RENAME TO attendance_records");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_attendance_records_checkInMillis ON attendance_records (checkInMillis)");
+        }
+    };
+
+    // Indexes for the lookups that run on every geofence event and sync
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_attendance_records_checkOutMillis ON attendance_records (checkOutMillis)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_attendance_records_completed_synced ON attendance_records (completed, synced)");
+        }
+    };
+
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS location_breadcrumbs (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "recordId INTEGER NOT NULL, " +
+                    "latitude REAL NOT NULL, " +
+                    "longitude REAL NOT NULL, " +
+                    "accuracy REAL NOT NULL, " +
+                    "timeMillis INTEGER NOT NULL, " +
+                    "FOREIGN KEY(recordId) REFERENCES attendance_records(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_location_breadcrumbs_recordId ON location_breadcrumbs (recordId)");
+        }
+    };
+
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE attendance_records ADD COLUMN track BLOB");
+            database.execSQL("ALTER TABLE attendance_records ADD COLUMN trackPointCount INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Rows are filled in by AttendanceRollups.rebuildIfNeeded() on the next app start
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS daily_rollups (" +
+                    "userId TEXT NOT NULL, officeName TEXT NOT NULL, day INTEGER NOT NULL, " +
+                    "workedMillis INTEGER NOT NULL, sessionCount INTEGER NOT NULL, " +
+                    "firstInMillis INTEGER NOT NULL, lastOutMillis INTEGER NOT NULL, " +
+                    "PRIMARY KEY(userId, officeName, day))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS weekly_rollups (" +
+                    "userId TEXT NOT NULL, officeName TEXT NOT NULL, weekStartDay INTEGER NOT NULL, " +
+                    "workedMillis INTEGER NOT NULL, sessionCount INTEGER NOT NULL, " +
+                    "firstInMillis INTEGER NOT NULL, lastOutMillis INTEGER NOT NULL, " +
+                    "PRIMARY KEY(userId, officeName, weekStartDay))");
+        }
+    };
+
+    // Seeds the outbox with everything the old synced flag still considered pending
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS sync_outbox (" +
+                    "seq INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "recordId INTEGER NOT NULL, " +
+                    "op TEXT NOT NULL, " +
+                    "createdAtMillis INTEGER NOT NULL)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS sync_cursors (" +
+                    "name TEXT NOT NULL, " +
+                    "lastSeq INTEGER NOT NULL, " +
+                    "PRIMARY KEY(name))");
+            database.execSQL("INSERT INTO sync_outbox (recordId, op, createdAtMillis) " +
+                    "SELECT id, 'CHECK_OUT', checkOutMillis FROM attendance_records " +
+                    "WHERE completed = 1 AND synced = 0 ORDER BY id");
+            database.execSQL("INSERT INTO sync_outbox (recordId, op, createdAtMillis) " +
+                    "SELECT id, 'CHECK_IN', checkInMillis FROM attendance_records " +
+                    "WHERE checkOutMillis IS NULL");
+        }
+    };
+
+    // Splits the outbox into an events lane and a bulk lane, each with its own cursor. Track
+    // edits go to the bulk lane; both cursors start where the single cursor stopped.
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE sync_outbox ADD COLUMN lane TEXT NOT NULL DEFAULT 'events'");
+            database.execSQL("UPDATE sync_outbox SET lane = 'bulk' WHERE op = 'EDIT'");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_sync_outbox_lane_seq ON sync_outbox (lane, seq)");
+            database.execSQL("INSERT OR REPLACE INTO sync_cursors (name, lastSeq) " +
+                    "SELECT 'events', lastSeq FROM sync_cursors WHERE name = 'attendance'");
+            database.execSQL("INSERT OR REPLACE INTO sync_cursors (name, lastSeq) " +
+                    "SELECT 'bulk', lastSeq FROM sync_cursors WHERE name = 'attendance'");
+            database.execSQL("DELETE FROM sync_cursors WHERE name = 'attendance'");
+        }
+    };
+
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS sync_run_metrics (" +
+                    "slot INTEGER NOT NULL, " +
+                    "runSeq INTEGER NOT NULL, " +
+                    "lane TEXT NOT NULL, " +
+                    "transport TEXT, " +
+                    "attempt INTEGER NOT NULL, " +
+                    "startedAtMillis INTEGER NOT NULL, " +
+                    "elapsedMillis INTEGER NOT NULL, " +
+                    "pendingAtStart INTEGER NOT NULL, " +
+                    "oldestQueueAgeMillis INTEGER NOT NULL, " +
+                    "records INTEGER NOT NULL, " +
+                    "rejected INTEGER NOT NULL, " +
+                    "bytes INTEGER NOT NULL, " +
+                    "batches INTEGER NOT NULL, " +
+                    "retries INTEGER NOT NULL, " +
+                    "aborted INTEGER NOT NULL, " +
+                    "errors TEXT, " +
+                    "uploadLatency TEXT, " +
+                    "queueLatency TEXT, " +
+                    "PRIMARY KEY(slot))");
+        }
+    };
+
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS offices (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "name TEXT NOT NULL, " +
+                    "latitude REAL NOT NULL, " +
+                    "longitude REAL NOT NULL, " +
+                    "radiusMeters REAL NOT NULL, " +
+                    "cellKey INTEGER NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_offices_cellKey ON offices (cellKey)");
+            seedOffices(database);
+        }
+    };
+
+    // Polygon outlines; the circle stays as the geofence trigger
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE offices ADD COLUMN footprint TEXT");
+        }
+    };
+
+    // Allowed Wi-Fi access points per office, replacing the single hard-coded SSID/BSSID
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS office_access_points (" +
+                    "bssid INTEGER NOT NULL, " +
+                    "officeId INTEGER NOT NULL, " +
+                    "PRIMARY KEY(bssid), " +
+                    "FOREIGN KEY(officeId) REFERENCES offices(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_office_access_points_officeId ON office_access_points (officeId)");
+            seedAccessPoints(database);
+        }
+    };
+
+    // Sessions remember which office they were opened at, so a check-out can be matched by id
+    // rather than by name. Older rows get the id only where the name picks out a single office.
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE attendance_records ADD COLUMN officeId INTEGER");
+            database.execSQL("UPDATE attendance_records SET officeId = " +
+                    "(SELECT MIN(id) FROM offices WHERE offices.name = attendance_records.officeName " +
+                    "GROUP BY offices.name HAVING COUNT(*) = 1)");
+        }
+    };
+
+    // The site the app was built for; more offices are added to the table as they open
+    static final String HEADQUARTERS_NAME = "Headquarters";
+    static final double HEADQUARTERS_LAT = 28.720126;
+    static final double HEADQUARTERS_LON = 77.0822006;
+    static final float HEADQUARTERS_RADIUS = 150;
+    static final String HEADQUARTERS_BSSID = "5e:0f:49:e5:60:6f";
+
+    static void seedOffices(SupportSQLiteDatabase database) {
+        database.execSQL("INSERT INTO offices (name, latitude, longitude, radiusMeters, cellKey) " +
+                        "SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM offices)",
+                new Object[]{HEADQUARTERS_NAME, HEADQUARTERS_LAT, HEADQUARTERS_LON, HEADQUARTERS_RADIUS,
+                        OfficeGrid.cellKey(HEADQUARTERS_LAT, HEADQUARTERS_LON)});
+    }
+
+    static void seedAccessPoints(SupportSQLiteDatabase database) {
+        database.execSQL("INSERT OR IGNORE INTO office_access_points (bssid, officeId) " +
+                        "SELECT ?, id FROM offices WHERE name = ? ORDER BY id LIMIT 1",
+                new Object[]{BssidIndex.parse(HEADQUARTERS_BSSID), HEADQUARTERS_NAME});
+    }
+
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
@@ -29,7 +248,16 @@ public abstract class AppDatabase extends RoomDatabase {
                                     context.getApplicationContext(),
                                     AppDatabase.class,
                                     "attendance_db"
-                            ).addMigrations(MIGRATION_2_3)
+                            ).addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+                                    MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14,
+                                    MIGRATION_14_15)
+                            .addCallback(new Callback() {
+                                @Override
+                                public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                    seedOffices(db);
+                                    seedAccessPoints(db);
+                                }
+                            })
                             .build();
                 }
             }
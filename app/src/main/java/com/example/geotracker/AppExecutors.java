@@ -0,0 +1,77 @@
+package com.example.geotracker;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.Executor;
+
+// The app's only background threads. Every component posts to one of three lanes so the thread
+// count stays fixed however many broadcasts, syncs or screens are active:
+//  - diskWrite: one thread; all database writes and check-in/check-out decisions, in order
+//  - io: a small bounded pool for reads, network and other blocking work; a burst past its queue
+//    spills onto an overflow thread, never onto the submitting (possibly main) thread
+//  - mainThread: posts back to the UI thread
+public class AppExecutors {
+    private static final int IO_THREADS = 3;
+    private static final int IO_QUEUE_CAPACITY = 256;
+
+    private static volatile AppExecutors INSTANCE;
+
+    private final InstrumentedExecutor diskWrite;
+    private final InstrumentedExecutor io;
+    private final Executor mainThread;
+
+    private AppExecutors(InstrumentedExecutor diskWrite, InstrumentedExecutor io, Executor mainThread) {
+        this.diskWrite = diskWrite;
+        this.io = io;
+        this.mainThread = mainThread;
+    }
+
+    public static AppExecutors getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AppExecutors.class) {
+                if (INSTANCE == null) {
+                    Handler mainHandler = new Handler(Looper.getMainLooper());
+                    INSTANCE = new AppExecutors(
+                            // Unbounded: running a write on the caller would break the ordering guarantee
+                            new InstrumentedExecutor("db-write", 1, Integer.MAX_VALUE),
+                            new InstrumentedExecutor("io", IO_THREADS, IO_QUEUE_CAPACITY),
+                            mainHandler::post);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Test hook: every lane runs tasks synchronously on the calling thread
+    @VisibleForTesting
+    public static AppExecutors direct() {
+        return new AppExecutors(InstrumentedExecutor.direct("db-write"), InstrumentedExecutor.direct("io"), Runnable::run);
+    }
+
+    // Installs executors (e.g. direct()) as the instance getInstance() returns; null resets it
+    @VisibleForTesting
+    public static void setInstanceForTesting(AppExecutors executors) {
+        synchronized (AppExecutors.class) {
+            INSTANCE = executors;
+        }
+    }
+
+    public Executor diskWrite() {
+        return diskWrite;
+    }
+
+    public Executor io() {
+        return io;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    public String dumpMetrics() {
+        return diskWrite.describe() + "\n" + io.describe();
+    }
+}
@@ -1,30 +1,73 @@
 package com.example.geotracker;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
-import androidx.room.Update;
 import java.util.List;
 
 @Dao
 public interface AttendanceDao {
+    // Query text is shared with AttendanceQueryPlanTest, which checks each lookup stays indexed
+    String ACTIVE_RECORD_QUERY = "SELECT * FROM attendance_records WHERE checkOutMillis IS NULL LIMIT 1";
+    String UNSYNCED_COMPLETED_QUERY = "SELECT * FROM attendance_records WHERE completed = 1 AND synced = 0";
+    String COMPLETED_QUERY = "SELECT * FROM attendance_records WHERE completed = 1 ORDER BY id DESC";
+    String RECORDS_BEFORE_QUERY = "SELECT * FROM attendance_records WHERE id < :cursor ORDER BY id DESC LIMIT :limit";
+    String RECORDS_AFTER_QUERY = "SELECT * FROM attendance_records WHERE id > :cursor ORDER BY id ASC LIMIT :limit";
+    String RECORDS_BETWEEN_QUERY = "SELECT * FROM attendance_records WHERE checkInMillis >= :fromMillis AND checkInMillis < :toMillis ORDER BY checkInMillis";
+
     @Insert
-    void insert(AttendanceRecord record);
+    long insert(AttendanceRecord record);
+
+    @Query("SELECT * FROM attendance_records WHERE id = :id")
+    AttendanceRecord getRecord(int id);
+
+    @Query("SELECT * FROM attendance_records WHERE id IN (:ids)")
+    List<AttendanceRecord> getRecords(List<Integer> ids);
+
+    // Targeted updates so writers holding an older copy of a record cannot clobber other columns
+    @Query("UPDATE attendance_records SET track = :track, trackPointCount = :pointCount WHERE id = :id")
+    void setTrack(int id, byte[] track, int pointCount);
+
+    @Query("UPDATE attendance_records SET synced = 1, firestoreId = :firestoreId WHERE id = :id")
+    void markSynced(int id, String firestoreId);
 
-    @Update
-    void update(AttendanceRecord record);
+    // Check-out; synced is cleared so the completed session is uploaded again. A row that is
+    // already checked out is left alone; returns the number of rows changed
+    @Query("UPDATE attendance_records SET checkOutMillis = :checkOutMillis, durationMillis = :durationMillis, "
+            + "completed = 1, synced = 0 WHERE id = :id AND checkOutMillis IS NULL")
+    int setCheckedOut(int id, long checkOutMillis, long durationMillis);
 
-    @Query("SELECT * FROM attendance_records WHERE checkOutTime IS NULL LIMIT 1")
+    @Query(ACTIVE_RECORD_QUERY)
     AttendanceRecord getActiveRecord();
 
-    @Query("SELECT * FROM attendance_records ORDER BY id DESC")
-    List<AttendanceRecord> getAllRecords();
+    // Active session plus latest completed one in a single query. The unary + keeps SQLite walking
+    // the rowid backwards (newest first) instead of sorting every completed row.
+    @Query("SELECT * FROM attendance_records WHERE id IN (" +
+            "(SELECT id FROM attendance_records WHERE checkOutMillis IS NULL LIMIT 1), " +
+            "(SELECT id FROM attendance_records WHERE +completed = 1 ORDER BY id DESC LIMIT 1))")
+    LiveData<List<AttendanceRecord>> observeDashboardRecords();
 
+    // Keyset pages for the history list: newest first, then everything below the last id seen
+    @Query("SELECT * FROM attendance_records ORDER BY id DESC LIMIT :limit")
+    List<AttendanceRecord> getLatestRecords(int limit);
 
-    @Query("SELECT * FROM attendance_records WHERE completed = 1 AND synced = 0")
+    @Query(RECORDS_BEFORE_QUERY)
+    List<AttendanceRecord> getRecordsBefore(int cursor, int limit);
+
+    // Oldest first: the page just above cursor
+    @Query(RECORDS_AFTER_QUERY)
+    List<AttendanceRecord> getRecordsAfter(int cursor, int limit);
+
+
+    @Query(UNSYNCED_COMPLETED_QUERY)
     List<AttendanceRecord> getUnsyncedCompletedRecords();
 
-    @Query("SELECT * FROM attendance_records WHERE completed = 1 ORDER BY id DESC")
+    @Query(COMPLETED_QUERY)
     List<AttendanceRecord> getCompletedRecords();
 
+    // Sessions that started in [fromMillis, toMillis)
+    @Query(RECORDS_BETWEEN_QUERY)
+    List<AttendanceRecord> getRecordsBetween(long fromMillis, long toMillis);
+
 }
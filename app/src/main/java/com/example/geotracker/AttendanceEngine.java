@@ -0,0 +1,277 @@
+package com.example.geotracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// The one place attendance changes. Geofence broadcasts, manual check-ins, boot recovery and
+// permission loss all submit events here; they run one at a time on a single-writer queue, each
+// reads the active session and applies its transition through the store as one atomic step, and
+// only then reports what the rest of the app should do (start the service, notify, sync...).
+// Callers never open or close sessions themselves, so two sources racing cannot both check in.
+//
+// Pure Java: the queue, the store and the effect sink are supplied by AttendanceEvents.
+public final class AttendanceEngine {
+
+    public enum EventType {
+        // Arrival confirmed by TransitionStateStore (dwell met) and verified on office Wi-Fi
+        ENTER,
+        MANUAL_CHECK_IN,
+        // Departure confirmed by TransitionStateStore (grace expired)
+        EXIT,
+        // First fix after a reboot was inside an office
+        BOOT_INSIDE,
+        // First fix after a reboot was outside every office
+        BOOT_OUTSIDE,
+        PERMISSION_LOST
+    }
+
+    public static final class Event {
+        public final EventType type;
+        // -1 when unknown
+        public final int officeId;
+        public final String officeName;
+        public final String userId;
+        public final long timeMillis;
+
+        private Event(EventType type, int officeId, String officeName, String userId, long timeMillis) {
+            this.type = type;
+            this.officeId = officeId;
+            this.officeName = officeName;
+            this.userId = userId;
+            this.timeMillis = timeMillis;
+        }
+
+        public static Event enter(int officeId, String officeName, String userId, long timeMillis) {
+            return new Event(EventType.ENTER, officeId, officeName, userId, timeMillis);
+        }
+
+        public static Event manualCheckIn(int officeId, String officeName, String userId, long timeMillis) {
+            return new Event(EventType.MANUAL_CHECK_IN, officeId, officeName, userId, timeMillis);
+        }
+
+        public static Event exit(int officeId, String officeName, long timeMillis) {
+            return new Event(EventType.EXIT, officeId, officeName, null, timeMillis);
+        }
+
+        public static Event bootInside(int officeId, long timeMillis) {
+            return new Event(EventType.BOOT_INSIDE, officeId, null, null, timeMillis);
+        }
+
+        public static Event bootOutside(long timeMillis) {
+            return new Event(EventType.BOOT_OUTSIDE, -1, null, null, timeMillis);
+        }
+
+        public static Event permissionLost(long timeMillis) {
+            return new Event(EventType.PERMISSION_LOST, -1, null, null, timeMillis);
+        }
+
+        @Override
+        public String toString() {
+            return type + " office=" + officeId + " at " + timeMillis;
+        }
+    }
+
+    public enum EffectType {
+        START_TRACKING,
+        STOP_TRACKING,
+        // Start the service watching fixes for officeId until a dwell is confirmed
+        WATCH_OFFICE,
+        // Remember officeId as the one the tracking service samples against
+        SAVE_ACTIVE_OFFICE,
+        // Tell TransitionStateStore a session was opened for officeId outside its own dwell
+        MARK_CHECKED_IN,
+        RESET_TRANSITIONS,
+        REQUEST_SYNC,
+        NOTIFY,
+        // On officeId's Wi-Fi (any office's when -1) after leaving its fence
+        WARN_IF_ON_OFFICE_WIFI
+    }
+
+    public static final class Effect {
+        public final EffectType type;
+        public final int officeId;
+        public final String title;
+        public final String message;
+
+        private Effect(EffectType type, int officeId, String title, String message) {
+            this.type = type;
+            this.officeId = officeId;
+            this.title = title;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return type + (officeId >= 0 ? " office=" + officeId : "") + (title != null ? " " + title : "");
+        }
+    }
+
+    // What one event did. Effects are in the order they should be applied.
+    public static final class Outcome {
+        public final Event event;
+        // The session this event opened, or null
+        public final AttendanceRecord opened;
+        // The session this event closed, or null
+        public final AttendanceRecord closed;
+        public final List<Effect> effects;
+        // The store failed; nothing was applied and effects is empty
+        public final RuntimeException error;
+
+        private Outcome(Event event, AttendanceRecord opened, AttendanceRecord closed, List<Effect> effects,
+                        RuntimeException error) {
+            this.event = event;
+            this.opened = opened;
+            this.closed = closed;
+            this.effects = Collections.unmodifiableList(effects);
+            this.error = error;
+        }
+
+        public boolean changed() {
+            return opened != null || closed != null;
+        }
+    }
+
+    public interface EffectSink {
+        // Called on the queue, after the event's transition has committed
+        void apply(Outcome outcome);
+    }
+
+    private final AttendanceStore store;
+    private final Executor queue;
+    private final EffectSink sink;
+
+    // queue must run tasks one at a time, in order
+    public AttendanceEngine(AttendanceStore store, Executor queue, EffectSink sink) {
+        this.store = store;
+        this.queue = queue;
+        this.sink = sink;
+    }
+
+    public void submit(Event event) {
+        queue.execute(() -> sink.apply(process(event)));
+    }
+
+    // Runs on the queue; tests call it directly
+    Outcome process(Event event) {
+        List<Effect> effects = new ArrayList<>();
+        try {
+            switch (event.type) {
+                case ENTER:
+                case MANUAL_CHECK_IN:
+                    return checkIn(event, effects);
+                case EXIT:
+                    return checkOut(event, effects);
+                case BOOT_INSIDE:
+                    return bootInside(event, effects);
+                case BOOT_OUTSIDE:
+                case PERMISSION_LOST:
+                    return endSession(event, effects);
+                default:
+                    return new Outcome(event, null, null, effects, null);
+            }
+        } catch (RuntimeException e) {
+            return new Outcome(event, null, null, new ArrayList<>(), e);
+        }
+    }
+
+    private Outcome checkIn(Event event, List<Effect> effects) {
+        // startSession re-checks for an active session inside its transaction, so a second
+        // arrival, or a manual check-in racing a confirmed one, opens nothing
+        AttendanceRecord record = store.startSession(event.officeId, event.officeName, event.userId, event.timeMillis);
+        if (record == null) {
+            return new Outcome(event, null, null, effects, null);
+        }
+        String time = TimeFormats.timestamp(event.timeMillis);
+        if (event.officeId >= 0) {
+            effects.add(effect(EffectType.SAVE_ACTIVE_OFFICE, event.officeId));
+            if (event.type == EventType.MANUAL_CHECK_IN) {
+                effects.add(effect(EffectType.MARK_CHECKED_IN, event.officeId));
+            }
+        }
+        effects.add(effect(EffectType.START_TRACKING, -1));
+        if (event.type == EventType.MANUAL_CHECK_IN) {
+            effects.add(notify("Manual Check-In", "You were checked in at " + time));
+        } else {
+            effects.add(notify("Geofence Entered", "You entered the geofence at " + time));
+        }
+        return new Outcome(event, record, null, effects, null);
+    }
+
+    private Outcome checkOut(Event event, List<Effect> effects) {
+        AttendanceRecord active = store.getActiveSession();
+        if (active == null) {
+            return new Outcome(event, null, null, effects, null);
+        }
+        if (!isAt(active, event)) {
+            // Left a neighbouring site's fence, not the one the session is at, or an office that
+            // could not be looked up
+            return new Outcome(event, null, null, effects, null);
+        }
+        AttendanceRecord closed = store.completeActiveSession(checkOutTime(event, active));
+        if (closed == null) {
+            return new Outcome(event, null, null, effects, null);
+        }
+        effects.add(effect(EffectType.STOP_TRACKING, -1));
+        effects.add(notify("Geofence Exited", "You exited the geofence at " + TimeFormats.timestamp(event.timeMillis)));
+        effects.add(effect(EffectType.WARN_IF_ON_OFFICE_WIFI, event.officeId));
+        effects.add(effect(EffectType.REQUEST_SYNC, -1));
+        return new Outcome(event, null, closed, effects, null);
+    }
+
+    private Outcome bootInside(Event event, List<Effect> effects) {
+        if (store.getActiveSession() != null) {
+            effects.add(effect(EffectType.START_TRACKING, -1));
+            effects.add(notify("GeoTracker", "Session resumed after reboot at " + TimeFormats.timestamp(event.timeMillis)));
+        } else if (event.officeId >= 0) {
+            // No session to resume: arriving after a reboot still has to meet the dwell
+            effects.add(effect(EffectType.WATCH_OFFICE, event.officeId));
+        }
+        return new Outcome(event, null, null, effects, null);
+    }
+
+    private Outcome endSession(Event event, List<Effect> effects) {
+        AttendanceRecord active = store.getActiveSession();
+        if (active == null) {
+            return new Outcome(event, null, null, effects, null);
+        }
+        AttendanceRecord closed = store.completeActiveSession(checkOutTime(event, active));
+        if (closed == null) {
+            return new Outcome(event, null, null, effects, null);
+        }
+        String time = TimeFormats.timestamp(event.timeMillis);
+        effects.add(effect(EffectType.RESET_TRANSITIONS, -1));
+        effects.add(effect(EffectType.REQUEST_SYNC, -1));
+        effects.add(effect(EffectType.STOP_TRACKING, -1));
+        if (event.type == EventType.PERMISSION_LOST) {
+            effects.add(notify("GeoTracker", "Location permission revoked - session ended at " + time));
+        } else {
+            effects.add(notify("GeoTracker", "Auto checked-out after reboot at " + time));
+        }
+        return new Outcome(event, null, closed, effects, null);
+    }
+
+    // By id: names are not unique across sites. Sessions opened before records carried an office
+    // id can only be matched by name.
+    private static boolean isAt(AttendanceRecord active, Event event) {
+        if (event.officeId < 0) {
+            return false;
+        }
+        return active.officeId != null ? active.officeId == event.officeId : active.officeName.equals(event.officeName);
+    }
+
+    // Events are stamped when they are raised, not when the queue gets to them, so an exit can
+    // carry a time from before the check-in that was queued ahead of it
+    private static long checkOutTime(Event event, AttendanceRecord active) {
+        return Math.max(event.timeMillis, active.checkInMillis);
+    }
+
+    private static Effect effect(EffectType type, int officeId) {
+        return new Effect(type, officeId, null, null);
+    }
+
+    private static Effect notify(String title, String message) {
+        return new Effect(EffectType.NOTIFY, -1, title, message);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+// Process-wide AttendanceEngine on the diskWrite lane, backed by SessionRepository, and the sink
+// that turns its effects into services, notifications and syncs. Effects are applied on the same
+// lane right after their transition commits, so they are never reordered across events.
+public class AttendanceEvents implements AttendanceEngine.EffectSink {
+    private static final String TAG = "AttendanceEvents";
+
+    private static volatile AttendanceEngine ENGINE;
+
+    private final Context context;
+
+    private AttendanceEvents(Context context) {
+        this.context = context;
+    }
+
+    public static AttendanceEngine engine(Context context) {
+        if (ENGINE == null) {
+            synchronized (AttendanceEvents.class) {
+                if (ENGINE == null) {
+                    Context app = context.getApplicationContext();
+                    ENGINE = new AttendanceEngine(SessionRepository.getInstance(app),
+                            AppExecutors.getInstance().diskWrite(), new AttendanceEvents(app));
+                }
+            }
+        }
+        return ENGINE;
+    }
+
+    public static void submit(Context context, AttendanceEngine.Event event) {
+        engine(context).submit(event);
+    }
+
+    @Override
+    public void apply(AttendanceEngine.Outcome outcome) {
+        if (outcome.error != null) {
+            Log.e(TAG, outcome.event + " failed; nothing was recorded", outcome.error);
+            return;
+        }
+        if (!outcome.changed() && outcome.effects.isEmpty()) {
+            Log.d(TAG, outcome.event + ": no change");
+            return;
+        }
+        Log.d(TAG, outcome.event + " -> " + outcome.effects);
+        if (outcome.closed != null) {
+            BootSnapshotStore.getInstance(context).recordCheckOut();
+        }
+        if (outcome.opened != null) {
+            BootSnapshotStore.getInstance(context).recordCheckIn(outcome.event.officeId, outcome.opened.checkInMillis);
+        }
+        for (AttendanceEngine.Effect effect : outcome.effects) {
+            switch (effect.type) {
+                case START_TRACKING:
+                    startService(LocationForegroundService.ACTION_START_TRACKING, -1);
+                    break;
+                case STOP_TRACKING:
+                    startService(LocationForegroundService.ACTION_STOP_TRACKING, -1);
+                    break;
+                case WATCH_OFFICE:
+                    startService(LocationForegroundService.ACTION_WATCH_OFFICE, effect.officeId);
+                    break;
+                case SAVE_ACTIVE_OFFICE: {
+                    Office office = office(effect.officeId);
+                    if (office != null) {
+                        // The tracking service samples against this office's edge
+                        GeofenceHelper.saveActiveOffice(context, office);
+                    }
+                    break;
+                }
+                case MARK_CHECKED_IN:
+                    TransitionStateStore.getInstance(context).onCheckedIn(effect.officeId, outcome.event.timeMillis);
+                    break;
+                case RESET_TRANSITIONS:
+                    TransitionStateStore.getInstance(context).reset();
+                    break;
+                case REQUEST_SYNC:
+                    SyncScheduler.requestSyncAfterChange(context);
+                    break;
+                case NOTIFY:
+                    NotificationHelper.sendNotification(context, effect.title, effect.message);
+                    break;
+                case WARN_IF_ON_OFFICE_WIFI: {
+                    OfficeWifiMonitor monitor = OfficeWifiMonitor.getInstance(context);
+                    if (effect.officeId >= 0 ? monitor.verify(effect.officeId) : monitor.verify()) {
+                        NotificationHelper.sendNotification(context, "Attention Needed", "You left the geofence but are still on office Wi-Fi");
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private Office office(int officeId) {
+        return OfficeRegistry.getInstance(context).forRequestId(OfficeRegistry.requestIdFor(officeId));
+    }
+
+    private void startService(String action, int officeId) {
+        Intent serviceIntent = new Intent(context, LocationForegroundService.class);
+        serviceIntent.setAction(action);
+        if (officeId >= 0) {
+            serviceIntent.putExtra(LocationForegroundService.EXTRA_OFFICE_ID, officeId);
+        }
+        if (LocationForegroundService.ACTION_STOP_TRACKING.equals(action)) {
+            context.startService(serviceIntent);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(serviceIntent);
+        } else {
+            context.startService(serviceIntent);
+        }
+    }
+}
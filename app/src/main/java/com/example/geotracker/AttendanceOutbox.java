@@ -0,0 +1,9 @@
+package com.example.geotracker;
+
+// Appends outbox entries; callers must already be inside the transaction that made the change,
+// so a mutation and its outbox entry commit (or roll back) together.
+public class AttendanceOutbox {
+    public static void append(AppDatabase db, int recordId, String op) {
+        db.outboxDao().append(new OutboxEntry(recordId, op, System.currentTimeMillis()));
+    }
+}
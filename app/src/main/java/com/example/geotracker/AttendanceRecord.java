@@ -1,25 +1,64 @@
 package com.example.geotracker;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.annotation.NonNull;
 
-@Entity(tableName = "attendance_records")
+@Entity(tableName = "attendance_records",
+        indices = {
+                @Index("checkInMillis"),
+                // getActiveRecord(): checkOutMillis IS NULL
+                @Index("checkOutMillis"),
+                // getUnsyncedCompletedRecords(): completed = 1 AND synced = 0
+                @Index({"completed", "synced"})
+        })
 public class AttendanceRecord {
     @PrimaryKey(autoGenerate = true)
     public int id;
 
     @NonNull
     public String officeName = "Headquarters";
-    public String checkInTime;
-    public String checkOutTime;
+    // offices.id of the site the session was opened at; null for sessions recorded before it
+    // was stored whose office could not be told from the name
+    public Integer officeId;
+    // Epoch millis; checkOutMillis stays null while the session is active
+    public long checkInMillis;
+    public Long checkOutMillis;
+    public long durationMillis;
     public boolean synced = false;
     public String firestoreId;
     public String userId;
     public boolean completed = false;
+    // TrackCodec blob of the session's simplified breadcrumbs, written once the session closes
+    public byte[] track;
+    public int trackPointCount;
 
-    public AttendanceRecord(String officeName, String checkInTime) {
+    public AttendanceRecord(String officeName, long checkInMillis) {
         if (officeName != null) this.officeName = officeName;
-        this.checkInTime = checkInTime;
+        this.checkInMillis = checkInMillis;
     }
-}
\ No newline at end of file
+
+    // Closes the session and stores its duration so readers never have to recompute it
+    public void complete(long checkOutMillis) {
+        this.checkOutMillis = checkOutMillis;
+        this.durationMillis = Math.max(0, checkOutMillis - checkInMillis);
+        this.completed = true;
+    }
+
+    // Field-by-field copy, so a change can be prepared without touching a record others can see
+    public AttendanceRecord copy() {
+        AttendanceRecord copy = new AttendanceRecord(officeName, checkInMillis);
+        copy.id = id;
+        copy.officeId = officeId;
+        copy.checkOutMillis = checkOutMillis;
+        copy.durationMillis = durationMillis;
+        copy.synced = synced;
+        copy.firestoreId = firestoreId;
+        copy.userId = userId;
+        copy.completed = completed;
+        copy.track = track;
+        copy.trackPointCount = trackPointCount;
+        return copy;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.geotracker;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -8,16 +9,22 @@ import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import java.util.List;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
-public class AttendanceRecordsActivity extends AppCompatActivity {
+public class AttendanceRecordsActivity extends AppCompatActivity implements AttendanceRecordsPager.Callback {
+
+    // Start fetching the next page when this many rows are left below the last visible one
+    private static final int PREFETCH_DISTANCE = 10;
 
     private RecyclerView recyclerView;
     private ProgressBar progressBar;
     private TextView emptyView;
     private AttendanceRecordsAdapter adapter;
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    private LinearLayoutManager layoutManager;
+    private AttendanceRecordsPager pager;
+    // No records older than the adapter's oldest
+    private boolean endReached = false;
+    // Pages above the adapter's newest were dropped and can be reloaded
+    private boolean hasNewer = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,9 +40,22 @@ public class AttendanceRecordsActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         adapter = new AttendanceRecordsAdapter();
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && !endReached
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    pager.loadOlderPage(adapter.oldestId());
+                } else if (dy < 0 && hasNewer
+                        && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    pager.loadNewerPage(adapter.newestId());
+                }
+            }
+        });
     }
 
     private void loadAttendanceRecords() {
@@ -43,22 +63,48 @@ public class AttendanceRecordsActivity extends AppCompatActivity {
         recyclerView.setVisibility(View.GONE);
         emptyView.setVisibility(View.GONE);
 
-        executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(this);
-            List<AttendanceRecord> records = db.attendanceDao().getAllRecords();
+        pager = new AttendanceRecordsPager(this, this);
+        pager.loadOlderPage(-1);
+    }
 
-            runOnUiThread(() -> {
-                progressBar.setVisibility(View.GONE);
+    @Override
+    public void onOlderPageLoaded(List<AttendanceRecord> page, int oldestId, boolean endReached) {
+        if (oldestId != adapter.oldestId()) {
+            // The window moved while the page was loading; the scroll listener asks again
+            return;
+        }
+        boolean firstPage = oldestId < 0;
+        if (firstPage) {
+            progressBar.setVisibility(View.GONE);
 
-                if (records.isEmpty()) {
-                    emptyView.setVisibility(View.VISIBLE);
-                    recyclerView.setVisibility(View.GONE);
-                } else {
-                    emptyView.setVisibility(View.GONE);
-                    recyclerView.setVisibility(View.VISIBLE);
-                    adapter.setRecords(records);
-                }
-            });
-        });
+            if (page.isEmpty()) {
+                emptyView.setVisibility(View.VISIBLE);
+                recyclerView.setVisibility(View.GONE);
+                return;
+            }
+            emptyView.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+        }
+        this.endReached = endReached;
+        if (adapter.appendOlder(page) > 0) {
+            hasNewer = true;
+        }
+
+        // Prefetch one page ahead so the user does not hit the end of the list while scrolling
+        if (firstPage && !endReached) {
+            pager.loadOlderPage(adapter.oldestId());
+        }
+    }
+
+    @Override
+    public void onNewerPageLoaded(List<AttendanceRecord> page, int newestId, boolean topReached) {
+        if (newestId != adapter.newestId()) {
+            // The window moved while the page was loading; the scroll listener asks again
+            return;
+        }
+        hasNewer = !topReached;
+        if (adapter.prependNewer(page) > 0) {
+            endReached = false;
+        }
     }
-}
\ No newline at end of file
+}
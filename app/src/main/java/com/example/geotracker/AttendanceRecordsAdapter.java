@@ -6,19 +6,17 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
+// Holds a window of at most MAX_ROWS records, newest first. Adding a page at one end drops rows
+// from the other, so memory stays the same however far the user scrolls; AttendanceRecordsPager
+// reloads dropped pages by keyset when the user scrolls back to them.
 public class AttendanceRecordsAdapter extends RecyclerView.Adapter<AttendanceRecordsAdapter.RecordViewHolder> {
 
-    private List<AttendanceRecord> records = new ArrayList<>();
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-    private final SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy hh:mm a", Locale.getDefault());
+    static final int MAX_ROWS = AttendanceRecordsPager.PAGE_SIZE * 5;
+
+    private final List<AttendanceRecord> records = new ArrayList<>();
 
     @NonNull
     @Override
@@ -39,9 +37,42 @@ public class AttendanceRecordsAdapter extends RecyclerView.Adapter<AttendanceRec
         return records.size();
     }
 
-    public void setRecords(List<AttendanceRecord> records) {
-        this.records = records;
-        notifyDataSetChanged();
+    // Id of the newest record held, or -1 when empty
+    public int newestId() {
+        return records.isEmpty() ? -1 : records.get(0).id;
+    }
+
+    // Id of the oldest record held, or -1 when empty
+    public int oldestId() {
+        return records.isEmpty() ? -1 : records.get(records.size() - 1).id;
+    }
+
+    // Adds older records below; returns how many of the newest rows were dropped to make room
+    public int appendOlder(List<AttendanceRecord> page) {
+        int start = records.size();
+        records.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+        int excess = records.size() - MAX_ROWS;
+        if (excess <= 0) {
+            return 0;
+        }
+        records.subList(0, excess).clear();
+        notifyItemRangeRemoved(0, excess);
+        return excess;
+    }
+
+    // Adds newer records above; returns how many of the oldest rows were dropped to make room
+    public int prependNewer(List<AttendanceRecord> page) {
+        records.addAll(0, page);
+        notifyItemRangeInserted(0, page.size());
+        int excess = records.size() - MAX_ROWS;
+        if (excess <= 0) {
+            return 0;
+        }
+        int from = records.size() - excess;
+        records.subList(from, records.size()).clear();
+        notifyItemRangeRemoved(from, excess);
+        return excess;
     }
 
     class RecordViewHolder extends RecyclerView.ViewHolder {
@@ -60,40 +91,15 @@ public class AttendanceRecordsAdapter extends RecyclerView.Adapter<AttendanceRec
 
         public void bind(AttendanceRecord record) {
             tvOfficeName.setText(record.officeName);
-            tvCheckInTime.setText(formatDateTime(record.checkInTime));
+            tvCheckInTime.setText(TimeFormats.display(record.checkInMillis));
 
-            if (record.checkOutTime != null) {
-                tvCheckOutTime.setText(formatDateTime(record.checkOutTime));
-                tvDuration.setText(calculateDuration(record));
+            if (record.checkOutMillis != null) {
+                tvCheckOutTime.setText(TimeFormats.display(record.checkOutMillis));
+                tvDuration.setText(TimeFormats.duration(record.durationMillis));
             } else {
                 tvCheckOutTime.setText("--:--");
                 tvDuration.setText("Active session");
             }
         }
-
-        private String formatDateTime(String dateTime) {
-            try {
-                Date date = sdf.parse(dateTime);
-                return displayFormat.format(date);
-            } catch (ParseException e) {
-                return dateTime;
-            }
-        }
-
-        private String calculateDuration(AttendanceRecord record) {
-            try {
-                Date checkInDate = sdf.parse(record.checkInTime);
-                Date checkOutDate = sdf.parse(record.checkOutTime);
-
-                long duration = checkOutDate.getTime() - checkInDate.getTime();
-
-                long hours = TimeUnit.MILLISECONDS.toHours(duration);
-                long minutes = TimeUnit.MILLISECONDS.toMinutes(duration) % 60;
-
-                return String.format(Locale.getDefault(), "%dh %02dm", hours, minutes);
-            } catch (ParseException e) {
-                return "N/A";
-            }
-        }
     }
 }
\ No newline at end of file
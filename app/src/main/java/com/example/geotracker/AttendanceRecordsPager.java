@@ -0,0 +1,76 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Loads attendance history in keyset pages so the first screen only costs one small query and
+// each further page is an index seek regardless of history length. Pages are keyed on the ids
+// at the edges of what the adapter holds: older ones below (id < oldest), and newer ones above
+// (id > newest) once the adapter has dropped pages from the top to bound its memory.
+public class AttendanceRecordsPager {
+
+    public interface Callback {
+        // Older records, newest first, to go below oldestId (negative for the first page)
+        void onOlderPageLoaded(List<AttendanceRecord> page, int oldestId, boolean endReached);
+
+        // Newer records, newest first, to go above newestId; topReached once none are left
+        void onNewerPageLoaded(List<AttendanceRecord> page, int newestId, boolean topReached);
+    }
+
+    public static final int PAGE_SIZE = 30;
+
+    private final AttendanceDao dao;
+    private final Executor executor;
+    private final Executor mainThread;
+    private final Callback callback;
+
+    // Accessed on the main thread only
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+
+    public AttendanceRecordsPager(Context context, Callback callback) {
+        this.dao = AppDatabase.getInstance(context).attendanceDao();
+        this.executor = AppExecutors.getInstance().io();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+        this.callback = callback;
+    }
+
+    // The page below oldestId, or the latest page when oldestId is negative
+    public void loadOlderPage(int oldestId) {
+        if (loadingOlder) {
+            return;
+        }
+        loadingOlder = true;
+
+        executor.execute(() -> {
+            List<AttendanceRecord> page = oldestId < 0
+                    ? dao.getLatestRecords(PAGE_SIZE)
+                    : dao.getRecordsBefore(oldestId, PAGE_SIZE);
+
+            mainThread.execute(() -> {
+                loadingOlder = false;
+                callback.onOlderPageLoaded(page, oldestId, page.size() < PAGE_SIZE);
+            });
+        });
+    }
+
+    // The page above newestId
+    public void loadNewerPage(int newestId) {
+        if (loadingNewer) {
+            return;
+        }
+        loadingNewer = true;
+
+        executor.execute(() -> {
+            List<AttendanceRecord> page = dao.getRecordsAfter(newestId, PAGE_SIZE);
+            Collections.reverse(page);
+
+            mainThread.execute(() -> {
+                loadingNewer = false;
+                callback.onNewerPageLoaded(page, newestId, page.size() < PAGE_SIZE);
+            });
+        });
+    }
+}
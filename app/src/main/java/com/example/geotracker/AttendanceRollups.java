@@ -0,0 +1,101 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+// Keeps daily_rollups/weekly_rollups in step with completed sessions. Sessions are split at
+// local midnight so a night shift counts towards both days; the session itself is counted on
+// the day (and week) it started.
+public class AttendanceRollups {
+    private static final String TAG = "AttendanceRollups";
+    private static final String PREFS_NAME = "RollupPrefs";
+    private static final String KEY_BUILT_VERSION = "builtVersion";
+    // Bump to force a rebuild after a change in how rollups are computed
+    private static final int ROLLUP_VERSION = 1;
+    private static final int REBUILD_PAGE_SIZE = 200;
+
+    // Persists the check-out of a record completed in memory, queues it for upload and folds it
+    // into the rollups atomically. Only the check-out columns are written: the caller's copy may
+    // be older than the row's sync state and track. Returns false, having written nothing, if the
+    // row was already checked out, so a session is never queued or counted twice.
+    public static boolean completeSession(AppDatabase db, AttendanceRecord record) {
+        return db.runInTransaction(() -> {
+            if (db.attendanceDao().setCheckedOut(record.id, record.checkOutMillis, record.durationMillis) == 0) {
+                return false;
+            }
+            AttendanceOutbox.append(db, record.id, OutboxEntry.OP_CHECK_OUT);
+            applySession(db, record);
+            return true;
+        });
+    }
+
+    public static void rebuild(AppDatabase db) {
+        db.runInTransaction(() -> {
+            RollupDao rollupDao = db.rollupDao();
+            rollupDao.clearDaily();
+            rollupDao.clearWeekly();
+
+            AttendanceDao dao = db.attendanceDao();
+            List<AttendanceRecord> page = dao.getLatestRecords(REBUILD_PAGE_SIZE);
+            while (!page.isEmpty()) {
+                for (AttendanceRecord record : page) {
+                    if (record.completed && record.checkOutMillis != null) {
+                        applySession(db, record);
+                    }
+                }
+                page = dao.getRecordsBefore(page.get(page.size() - 1).id, REBUILD_PAGE_SIZE);
+            }
+        });
+    }
+
+    // Rebuilds once after the rollup tables are introduced (or ROLLUP_VERSION changes)
+    public static void rebuildIfNeeded(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getInt(KEY_BUILT_VERSION, 0) == ROLLUP_VERSION) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        rebuild(AppDatabase.getInstance(context));
+        prefs.edit().putInt(KEY_BUILT_VERSION, ROLLUP_VERSION).apply();
+        Log.d(TAG, "Rollups rebuilt in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static void applySession(AppDatabase db, AttendanceRecord record) {
+        RollupDao rollupDao = db.rollupDao();
+        ZoneId zone = ZoneId.systemDefault();
+        String userId = record.userId != null ? record.userId : "";
+        String office = record.officeName;
+        long end = record.checkOutMillis;
+
+        long segmentStart = record.checkInMillis;
+        LocalDate day = Instant.ofEpochMilli(segmentStart).atZone(zone).toLocalDate();
+        boolean firstSegment = true;
+        while (true) {
+            long nextMidnight = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            long segmentEnd = Math.min(end, nextMidnight);
+            int sessions = firstSegment ? 1 : 0;
+            long worked = Math.max(0, segmentEnd - segmentStart);
+
+            long epochDay = day.toEpochDay();
+            rollupDao.ensureDaily(userId, office, epochDay, segmentStart, segmentEnd);
+            rollupDao.addToDaily(userId, office, epochDay, worked, sessions, segmentStart, segmentEnd);
+
+            long weekStart = day.with(DayOfWeek.MONDAY).toEpochDay();
+            rollupDao.ensureWeekly(userId, office, weekStart, segmentStart, segmentEnd);
+            rollupDao.addToWeekly(userId, office, weekStart, worked, sessions, segmentStart, segmentEnd);
+
+            if (segmentEnd >= end) {
+                break;
+            }
+            segmentStart = segmentEnd;
+            day = day.plusDays(1);
+            firstSegment = false;
+        }
+    }
+}
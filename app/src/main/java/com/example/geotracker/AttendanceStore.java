@@ -0,0 +1,16 @@
+package com.example.geotracker;
+
+// Where AttendanceEngine keeps sessions. Each call must be atomic on its own: startSession()
+// checks for an active session and inserts in one transaction, completeActiveSession() checks
+// out the record and updates its rollups in one transaction. SessionRepository is the
+// Room-backed implementation.
+public interface AttendanceStore {
+    // The open session, or null
+    AttendanceRecord getActiveSession();
+
+    // Opens a session unless one is already active; returns the new record, or null if not opened
+    AttendanceRecord startSession(int officeId, String officeName, String userId, long checkInMillis);
+
+    // Checks out the active session; returns it, or null if there was none
+    AttendanceRecord completeActiveSession(long checkOutMillis);
+}
@@ -6,153 +6,123 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.location.Location;
-import android.os.Build;
+import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.core.app.ActivityCompat;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
+import com.google.android.gms.location.CurrentLocationRequest;
 import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+// Recovers the session after a reboot inside goAsync(), so the process is kept alive until the
+// decision has been applied. BootRecoveryPlanner decides; this does the I/O: one indexed lookup
+// for the open session, the persisted BootSnapshot, and at most one fresh fix within the deadline.
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
-    private static final double GEOFENCE_LAT = 28.720126;
-    private static final double GEOFENCE_LON = 77.0822006;
-    private static final float GEOFENCE_RADIUS = 150;
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-    private static final int LOCATION_TIMEOUT_MS = 10000;
-    private static final String OFFICE_NAME = "Headquarters";
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    // goAsync() allows about 10 s before the broadcast is treated as hung
+    private static final long RECOVERY_DEADLINE_MS = 8_000;
+    // Left for applying the decision once the fix wait is over
+    private static final long APPLY_MARGIN_MS = 1_000;
+    // Shared lanes; a per-instance executor would leak a thread per broadcast. The decision only
+    // reads, so it runs on io rather than queueing behind startup writes on diskWrite.
+    private final Executor io = AppExecutors.getInstance().io();
+    private final Executor diskWrite = AppExecutors.getInstance().diskWrite();
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            Log.d(TAG, "Device rebooted. Initializing geofence recovery...");
-            new GeofenceHelper(context).reRegisterGeofences();
-            executor.execute(() -> {
-                AppDatabase db = AppDatabase.getInstance(context);
-                AttendanceDao dao = db.attendanceDao();
-                AttendanceRecord activeRecord = dao.getActiveRecord();
-                if (activeRecord != null || dao.getAllRecords().isEmpty()) {
-                    Log.d(TAG, "Checking location state after reboot...");
-                    NotificationHelper.sendNotification(context, "GeoTracker", "Recovering your session after reboot");
-                    FusedLocationProviderClient client = LocationServices.getFusedLocationProviderClient(context);
-                    if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-                        client.getLastLocation().addOnSuccessListener(location -> {
-                            if (location != null) {
-                                handleLocationResult(context, location, activeRecord);
-                            } else {
-                                requestFreshLocationWithTimeout(context, client, activeRecord);
-                            }
-                        });
-                    } else {
-                        Log.w(TAG, "Location permission not granted after reboot");
-                    }
-                }
-            });
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
+            return;
         }
-    }
-
-    private void handleLocationResult(Context context, Location location, AttendanceRecord activeRecord) {
-        float[] results = new float[1];
-        Location.distanceBetween(location.getLatitude(), location.getLongitude(), GEOFENCE_LAT, GEOFENCE_LON, results);
-        String currentTime = sdf.format(new Date());
-        AppDatabase db = AppDatabase.getInstance(context);
-        AttendanceDao dao = db.attendanceDao();
-
-        if (results[0] <= GEOFENCE_RADIUS) {
-            // Inside geofence
-            executor.execute(() -> {
-                if (activeRecord == null) {
-                    Log.d(TAG, "Inside geofence on boot, but no active session found. Starting service.");
-                }
-
-                // Start foreground service
-                Intent serviceIntent = new Intent(context, LocationForegroundService.class);
-                serviceIntent.setAction(LocationForegroundService.ACTION_START_TRACKING);
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    context.startForegroundService(serviceIntent);
-                } else {
-                    context.startService(serviceIntent);
-                }
-                String message = "Session resumed after reboot at " + currentTime;
-                NotificationHelper.sendNotification(context, "GeoTracker", message);
-            });
-        } else {
-            // Outside geofence
-            executor.execute(() -> {
-                if (activeRecord != null) {
-                    activeRecord.checkOutTime = currentTime;
-                    activeRecord.completed = true; // Mark as completed
-                    dao.update(activeRecord);
-                    Log.d(TAG, "Auto check-out recorded after reboot");
-
-                    // Trigger sync using WorkManager
-                    OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-                    WorkManager.getInstance(context).enqueue(syncWorkRequest);
-
-                    // Stop foreground service
-                    Intent stopServiceIntent = new Intent(context, LocationForegroundService.class);
-                    stopServiceIntent.setAction(LocationForegroundService.ACTION_STOP_TRACKING);
-                    context.startService(stopServiceIntent);
+        Log.d(TAG, "Device rebooted. Initializing geofence recovery...");
+        PendingResult pending = goAsync();
+        long startedAt = SystemClock.elapsedRealtime();
+        io.execute(() -> {
+            boolean sessionActive = SessionRepository.getInstance(context).hasActiveSession();
+            boolean permitted = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                    == PackageManager.PERMISSION_GRANTED;
+            BootRecoveryPlanner.Decision decision =
+                    BootRecoveryPlanner.onBoot(sessionActive, permitted, System.currentTimeMillis());
+            Log.d(TAG, "Boot check in " + (SystemClock.elapsedRealtime() - startedAt) + " ms: " + decision);
 
-                    NotificationHelper.sendNotification(context, "GeoTracker", "Auto checked-out after reboot at " + currentTime);
-                }
-            });
-        }
-        context.sendBroadcast(new Intent("com.example.geotracker.UPDATE_UI"));
+            if (decision.action == BootRecoveryPlanner.Action.AWAIT_FIX) {
+                NotificationHelper.sendNotification(context, "GeoTracker", "Recovering your session after reboot");
+                BootSnapshot snapshot = BootSnapshotStore.getInstance(context).get();
+                long budget = RECOVERY_DEADLINE_MS - APPLY_MARGIN_MS - (SystemClock.elapsedRealtime() - startedAt);
+                new Handler(Looper.getMainLooper()).post(() -> awaitFix(context, pending, snapshot, budget));
+            } else {
+                apply(context, decision, pending);
+            }
+        });
+        // Not needed for the decision, so it neither delays it nor eats into its deadline
+        io.execute(() -> new GeofenceHelper(context).reRegisterGeofences());
     }
 
-    private void requestFreshLocationWithTimeout(Context context, FusedLocationProviderClient client, AttendanceRecord activeRecord) {
-        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-            handleLocationPermissionLoss(context, activeRecord);
-            return;
-        }
-        LocationRequest locationRequest = LocationRequest.create().setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY).setNumUpdates(1).setExpirationDuration(LOCATION_TIMEOUT_MS);
+    // Main thread. Whichever of the fix and the deadline comes first decides; the other is dropped.
+    private void awaitFix(Context context, PendingResult pending, BootSnapshot snapshot, long budgetMillis) {
+        AtomicBoolean settled = new AtomicBoolean(false);
+        CancellationTokenSource cancellation = new CancellationTokenSource();
+        Handler handler = new Handler(Looper.getMainLooper());
+        Runnable deadline = () -> {
+            if (settled.compareAndSet(false, true)) {
+                cancellation.cancel();
+                Log.w(TAG, "No fix within " + budgetMillis + " ms; resuming");
+                apply(context, BootRecoveryPlanner.onDeadline(snapshot, System.currentTimeMillis()), pending);
+            }
+        };
+        handler.postDelayed(deadline, Math.max(0, budgetMillis));
+
+        FusedLocationProviderClient client = LocationServices.getFusedLocationProviderClient(context);
+        CurrentLocationRequest request = new CurrentLocationRequest.Builder()
+                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
+                .setDurationMillis(Math.max(1, budgetMillis))
+                .build();
         try {
-            client.requestLocationUpdates(locationRequest, new LocationCallback() {
-                @Override
-                public void onLocationResult(LocationResult locationResult) {
-                    if (locationResult != null && locationResult.getLastLocation() != null) {
-                        handleLocationResult(context, locationResult.getLastLocation(), activeRecord);
-                    } else {
-                        handleLocationPermissionLoss(context, activeRecord);
-                    }
+            client.getCurrentLocation(request, cancellation.getToken()).addOnCompleteListener(task -> {
+                Location location = task.isSuccessful() ? task.getResult() : null;
+                if (location == null || !settled.compareAndSet(false, true)) {
+                    // Nothing usable; the deadline still decides
+                    return;
                 }
-            }, Looper.getMainLooper());
+                handler.removeCallbacks(deadline);
+                io.execute(() -> {
+                    Office office = OfficeRegistry.getInstance(context)
+                            .findContaining(location.getLatitude(), location.getLongitude());
+                    apply(context, BootRecoveryPlanner.onFix(snapshot, office != null ? office.id : -1,
+                            System.currentTimeMillis()), pending);
+                });
+            });
         } catch (SecurityException e) {
-            handleLocationPermissionLoss(context, activeRecord);
+            if (settled.compareAndSet(false, true)) {
+                handler.removeCallbacks(deadline);
+                apply(context, BootRecoveryPlanner.onBoot(true, false, System.currentTimeMillis()), pending);
+            }
         }
     }
 
-    private void handleLocationPermissionLoss(Context context, AttendanceRecord activeRecord) {
-        Log.w(TAG, "Handling location permission loss");
-        String currentTime = sdf.format(new Date());
-        if (activeRecord != null) {
-            executor.execute(() -> {
-                activeRecord.checkOutTime = currentTime;
-                activeRecord.completed = true;
-                AppDatabase.getInstance(context).attendanceDao().update(activeRecord);
-
-                OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-                WorkManager.getInstance(context).enqueue(syncWorkRequest);
-
-                Intent stopServiceIntent = new Intent(context, LocationForegroundService.class);
-                stopServiceIntent.setAction(LocationForegroundService.ACTION_STOP_TRACKING);
-                context.startService(stopServiceIntent);
-
-                NotificationHelper.sendNotification(context, "GeoTracker", "Location permission revoked - session ended at " + currentTime);
-            });
+    // Hands the decision to the engine; the broadcast is finished from the same lane, after the
+    // engine has applied it
+    private void apply(Context context, BootRecoveryPlanner.Decision decision, PendingResult pending) {
+        Log.d(TAG, "Boot recovery: " + decision);
+        switch (decision.action) {
+            case RESUME:
+                AttendanceEvents.submit(context, AttendanceEngine.Event.bootInside(decision.officeId, decision.timeMillis));
+                break;
+            case CHECK_OUT:
+                AttendanceEvents.submit(context, AttendanceEngine.Event.bootOutside(decision.timeMillis));
+                break;
+            case PERMISSION_LOST:
+                Log.w(TAG, "Handling location permission loss");
+                AttendanceEvents.submit(context, AttendanceEngine.Event.permissionLost(decision.timeMillis));
+                break;
+            default:
+                break;
         }
+        diskWrite.execute(pending::finish);
     }
-}
\ No newline at end of file
+}
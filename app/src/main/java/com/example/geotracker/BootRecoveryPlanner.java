@@ -0,0 +1,76 @@
+package com.example.geotracker;
+
+// Decides what BootReceiver does after a reboot, from the session check, the persisted
+// BootSnapshot and, if one arrives in time, a fresh fix. Every path ends in a decision, so
+// recovery always finishes inside the receiver's deadline:
+//  - no open session: nothing to recover; re-registered geofences report any arrival
+//  - open session, no location permission: end it
+//  - open session: wait for a fix, then resume inside an office or check out outside
+//  - no fix before the deadline: resume; the tracking service's own fixes settle it from there
+//
+// Pure decisions; the receiver does the I/O and submits the result to AttendanceEngine.
+public final class BootRecoveryPlanner {
+
+    public enum Action {
+        NONE,
+        // Ask for a fix and call onFix() or onDeadline()
+        AWAIT_FIX,
+        RESUME,
+        CHECK_OUT,
+        PERMISSION_LOST
+    }
+
+    public static final class Decision {
+        public final Action action;
+        // Office to resume at, or -1
+        public final int officeId;
+        // When the decision takes effect (the check-out time for CHECK_OUT)
+        public final long timeMillis;
+
+        private Decision(Action action, int officeId, long timeMillis) {
+            this.action = action;
+            this.officeId = officeId;
+            this.timeMillis = timeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return action + (officeId >= 0 ? " office=" + officeId : "") + " at " + timeMillis;
+        }
+    }
+
+    private BootRecoveryPlanner() {
+    }
+
+    // sessionActive comes from the database; the snapshot only fills in what it cannot say
+    public static Decision onBoot(boolean sessionActive, boolean hasLocationPermission, long nowMillis) {
+        if (!sessionActive) {
+            return new Decision(Action.NONE, -1, nowMillis);
+        }
+        if (!hasLocationPermission) {
+            return new Decision(Action.PERMISSION_LOST, -1, nowMillis);
+        }
+        return new Decision(Action.AWAIT_FIX, -1, nowMillis);
+    }
+
+    // containingOfficeId: the office the fresh fix is inside, or -1
+    public static Decision onFix(BootSnapshot snapshot, int containingOfficeId, long nowMillis) {
+        if (containingOfficeId >= 0) {
+            return new Decision(Action.RESUME, containingOfficeId, nowMillis);
+        }
+        return new Decision(Action.CHECK_OUT, -1, checkOutTime(snapshot, nowMillis));
+    }
+
+    public static Decision onDeadline(BootSnapshot snapshot, long nowMillis) {
+        return new Decision(Action.RESUME, snapshot.sessionOfficeId, nowMillis);
+    }
+
+    // Outside after a reboot: the session ends at the last fix the service recorded during it,
+    // not when the phone came back, so hours spent switched off are not counted as attendance
+    static long checkOutTime(BootSnapshot snapshot, long nowMillis) {
+        if (snapshot.hasFixDuringSession() && snapshot.fixMillis <= nowMillis) {
+            return snapshot.fixMillis;
+        }
+        return nowMillis;
+    }
+}
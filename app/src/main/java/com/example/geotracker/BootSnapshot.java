@@ -0,0 +1,83 @@
+package com.example.geotracker;
+
+import java.util.Locale;
+
+// What BootReceiver needs to recover without reading the attendance table: the session that was
+// open and the last fix the tracking service saw. Kept in SharedPreferences by
+// BootSnapshotStore, so it survives the reboot it is meant for.
+//
+// Immutable; the with* methods return updated copies.
+public final class BootSnapshot {
+    public static final BootSnapshot EMPTY = new BootSnapshot(-1, -1, Double.NaN, Double.NaN, Float.NaN, -1);
+
+    // Office of the open session, or -1
+    public final int sessionOfficeId;
+    // Check-in time of the open session, or -1 when there is none
+    public final long checkInMillis;
+    public final double fixLatitude;
+    public final double fixLongitude;
+    public final float fixAccuracyMeters;
+    // Time of the last fix, or -1 when none has been seen
+    public final long fixMillis;
+
+    private BootSnapshot(int sessionOfficeId, long checkInMillis, double fixLatitude, double fixLongitude,
+                         float fixAccuracyMeters, long fixMillis) {
+        this.sessionOfficeId = sessionOfficeId;
+        this.checkInMillis = checkInMillis;
+        this.fixLatitude = fixLatitude;
+        this.fixLongitude = fixLongitude;
+        this.fixAccuracyMeters = fixAccuracyMeters;
+        this.fixMillis = fixMillis;
+    }
+
+    public boolean hasSession() {
+        return checkInMillis >= 0;
+    }
+
+    public boolean hasFix() {
+        return fixMillis >= 0;
+    }
+
+    // Whether the last fix was taken while the current session was open
+    public boolean hasFixDuringSession() {
+        return hasSession() && hasFix() && fixMillis >= checkInMillis;
+    }
+
+    public BootSnapshot withSession(int officeId, long checkInMillis) {
+        return new BootSnapshot(officeId, checkInMillis, fixLatitude, fixLongitude, fixAccuracyMeters, fixMillis);
+    }
+
+    public BootSnapshot withoutSession() {
+        return new BootSnapshot(-1, -1, fixLatitude, fixLongitude, fixAccuracyMeters, fixMillis);
+    }
+
+    public BootSnapshot withFix(double latitude, double longitude, float accuracyMeters, long fixMillis) {
+        return new BootSnapshot(sessionOfficeId, checkInMillis, latitude, longitude, accuracyMeters, fixMillis);
+    }
+
+    // "officeId|checkIn|lat|lon|accuracy|fixTime"
+    public String encode() {
+        return String.format(Locale.ROOT, "%d|%d|%s|%s|%s|%d", sessionOfficeId, checkInMillis,
+                fixLatitude, fixLongitude, fixAccuracyMeters, fixMillis);
+    }
+
+    public static BootSnapshot decode(String encoded) {
+        if (encoded == null) {
+            return EMPTY;
+        }
+        String[] parts = encoded.split("\\|");
+        try {
+            return new BootSnapshot(Integer.parseInt(parts[0]), Long.parseLong(parts[1]),
+                    Double.parseDouble(parts[2]), Double.parseDouble(parts[3]),
+                    Float.parseFloat(parts[4]), Long.parseLong(parts[5]));
+        } catch (RuntimeException e) {
+            // Unreadable: recover as if nothing was known; the database still has the session
+            return EMPTY;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.Location;
+
+// Process-wide owner of the persisted BootSnapshot. AttendanceEvents records sessions opening
+// and closing; the tracking service records fixes, at most once a minute so a HIGH-rate batch
+// does not become a preferences write per fix.
+public class BootSnapshotStore {
+    static final String PREFS_NAME = "BootSnapshot";
+    private static final String KEY_SNAPSHOT = "snapshot";
+    private static final long FIX_SAVE_INTERVAL_MS = 60_000;
+
+    private static volatile BootSnapshotStore INSTANCE;
+
+    private final SharedPreferences prefs;
+    private BootSnapshot snapshot;
+
+    private BootSnapshotStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+        this.snapshot = BootSnapshot.decode(prefs.getString(KEY_SNAPSHOT, null));
+    }
+
+    public static BootSnapshotStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (BootSnapshotStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BootSnapshotStore(
+                            context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public synchronized BootSnapshot get() {
+        return snapshot;
+    }
+
+    public synchronized void recordCheckIn(int officeId, long checkInMillis) {
+        save(snapshot.withSession(officeId, checkInMillis));
+    }
+
+    public synchronized void recordCheckOut() {
+        save(snapshot.withoutSession());
+    }
+
+    public synchronized void recordFix(Location fix) {
+        if (snapshot.hasFix() && fix.getTime() - snapshot.fixMillis < FIX_SAVE_INTERVAL_MS
+                && fix.getTime() >= snapshot.fixMillis) {
+            return;
+        }
+        save(snapshot.withFix(fix.getLatitude(), fix.getLongitude(),
+                fix.hasAccuracy() ? fix.getAccuracy() : Float.NaN, fix.getTime()));
+    }
+
+    private void save(BootSnapshot next) {
+        snapshot = next;
+        prefs.edit().putString(KEY_SNAPSHOT, next.encode()).apply();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Collects fixes in memory and writes them to Room in batches, so a workday of 2-5 s fixes
+// costs about one transaction per minute instead of one per fix. The age limit is enforced by a
+// timer as well as on add(), so fixes are written even when no further fix comes.
+public class BreadcrumbBuffer {
+    private static final String TAG = "BreadcrumbBuffer";
+    private static final int MAX_BATCH_SIZE = 25;
+    private static final long MAX_BATCH_AGE_MS = 60_000;
+
+    private final Context appContext;
+    private final AppDatabase db;
+    private final SessionRepository sessions;
+    private final Executor executor;
+    // Runs the age-limit flush
+    private final Handler timer;
+    private final Runnable ageFlush = this::flush;
+
+    private List<LocationBreadcrumb> pending = new ArrayList<>();
+    private long firstPendingAt;
+    // Only touched on the executor thread
+    private int recordId = -1;
+
+    public BreadcrumbBuffer(Context context, Executor executor, Handler timer) {
+        this.appContext = context.getApplicationContext();
+        this.db = AppDatabase.getInstance(context);
+        this.sessions = SessionRepository.getInstance(context);
+        this.executor = executor;
+        this.timer = timer;
+    }
+
+    // Binds the buffer to the session that is active now, before the check-out path closes it
+    public void bindToActiveSession() {
+        executor.execute(this::resolveRecordId);
+    }
+
+    public void add(Location location) {
+        boolean flushNow;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                firstPendingAt = System.currentTimeMillis();
+                // A stationary device may not report again for minutes
+                timer.postDelayed(ageFlush, MAX_BATCH_AGE_MS);
+            }
+            // recordId is filled in when the batch is written
+            pending.add(new LocationBreadcrumb(-1, location.getLatitude(), location.getLongitude(),
+                    location.getAccuracy(), location.getTime()));
+            flushNow = pending.size() >= MAX_BATCH_SIZE
+                    || System.currentTimeMillis() - firstPendingAt >= MAX_BATCH_AGE_MS;
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        final List<LocationBreadcrumb> batch;
+        synchronized (this) {
+            timer.removeCallbacks(ageFlush);
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        executor.execute(() -> {
+            if (recordId < 0) {
+                resolveRecordId();
+            }
+            if (recordId < 0) {
+                Log.w(TAG, "No active session, dropping " + batch.size() + " breadcrumbs");
+                return;
+            }
+            for (LocationBreadcrumb breadcrumb : batch) {
+                breadcrumb.recordId = recordId;
+            }
+            db.breadcrumbDao().insertAll(batch);
+            Log.d(TAG, "Stored " + batch.size() + " breadcrumbs for record " + recordId);
+        });
+    }
+
+    // Flushes and, if the bound session has been checked out, folds its breadcrumbs into the
+    // record's compact track
+    public void closeSession() {
+        flush();
+        executor.execute(() -> {
+            if (recordId >= 0 && TrackCompactor.compact(db, recordId)) {
+                SyncScheduler.requestBulkSync(appContext);
+            }
+        });
+    }
+
+    private void resolveRecordId() {
+        AttendanceRecord active = sessions.getActiveSession();
+        recordId = active != null ? active.id : -1;
+    }
+}
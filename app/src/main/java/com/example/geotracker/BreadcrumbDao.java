@@ -0,0 +1,19 @@
+package com.example.geotracker;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface BreadcrumbDao {
+    // Room runs a list insert in a single transaction
+    @Insert
+    void insertAll(List<LocationBreadcrumb> breadcrumbs);
+
+    @Query("SELECT * FROM location_breadcrumbs WHERE recordId = :recordId ORDER BY timeMillis")
+    List<LocationBreadcrumb> getForRecord(int recordId);
+
+    @Query("DELETE FROM location_breadcrumbs WHERE recordId = :recordId")
+    void deleteForRecord(int recordId);
+}
@@ -0,0 +1,151 @@
+package com.example.geotracker;
+
+import java.util.Arrays;
+
+// Access point BSSID -> office id, for checking every Wi-Fi event against every site's access
+// points. A BSSID is six octets, so it is packed into the low 48 bits of a long and stored in an
+// open-addressing table of primitives: no boxing, no per-entry objects, and a lookup is a hash
+// and a short linear probe. Parsing reads the text in place rather than normalising it first.
+//
+// Built once and then only read; safe to share between threads after publication (e.g. through
+// a volatile field), not to modify concurrently.
+public final class BssidIndex {
+    public static final int NO_OFFICE = -1;
+    // Never a packed BSSID, whose top 16 bits are always clear
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public BssidIndex() {
+        this(16);
+    }
+
+    public BssidIndex(int expectedSize) {
+        // Load factor of at most 1/2 keeps probes short
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Maps a packed BSSID to an office, replacing any earlier mapping
+    public void put(long bssid, int officeId) {
+        if (bssid < 0 || bssid > 0xFFFF_FFFF_FFFFL) {
+            throw new IllegalArgumentException("Not a packed BSSID: " + bssid);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(bssid, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == bssid) {
+                values[slot] = officeId;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = bssid;
+        values[slot] = officeId;
+        size++;
+    }
+
+    // Office of a packed BSSID, or NO_OFFICE (also for -1, parse()'s "not a BSSID")
+    public int officeFor(long bssid) {
+        if (bssid < 0) {
+            return NO_OFFICE;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(bssid, mask);
+        long key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == bssid) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_OFFICE;
+    }
+
+    public int officeFor(CharSequence bssid) {
+        return officeFor(parse(bssid));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slot(long bssid, int mask) {
+        // Vendor prefixes make the high octets alike across a site; mix everything into the low bits
+        long h = bssid * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // "5e:0f:49:e5:60:6f" (either case, ':' or '-' between octets, optionally in double quotes)
+    // packed into a long; -1 for anything else, including null
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            return -1;
+        }
+        int start = 0;
+        int end = text.length();
+        if (end >= 2 && text.charAt(0) == '"' && text.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        if (end - start != 17) {
+            return -1;
+        }
+        long packed = 0;
+        for (int octet = 0; octet < 6; octet++) {
+            int i = start + octet * 3;
+            int high = hexDigit(text.charAt(i));
+            int low = hexDigit(text.charAt(i + 1));
+            if (high < 0 || low < 0) {
+                return -1;
+            }
+            if (octet < 5) {
+                char separator = text.charAt(i + 2);
+                if (separator != ':' && separator != '-') {
+                    return -1;
+                }
+            }
+            packed = (packed << 8) | (high << 4) | low;
+        }
+        return packed;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    // Lower-case, colon-separated
+    public static String format(long bssid) {
+        StringBuilder out = new StringBuilder(17);
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            int octet = (int) (bssid >>> shift) & 0xFF;
+            if (shift < 40) out.append(':');
+            out.append(Character.forDigit(octet >> 4, 16)).append(Character.forDigit(octet & 0xF, 16));
+        }
+        return out.toString();
+    }
+}
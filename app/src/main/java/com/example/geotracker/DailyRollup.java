@@ -0,0 +1,19 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+@Entity(tableName = "daily_rollups", primaryKeys = {"userId", "officeName", "day"})
+public class DailyRollup {
+    // Empty when the session had no signed-in user
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String officeName = "";
+    // Local calendar day, as epoch day
+    public long day;
+    public long workedMillis;
+    public int sessionCount;
+    public long firstInMillis;
+    public long lastOutMillis;
+}
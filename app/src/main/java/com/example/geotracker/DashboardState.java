@@ -0,0 +1,55 @@
+package com.example.geotracker;
+
+import java.util.List;
+import java.util.Objects;
+
+// What the main screen shows: the active session, if any, and the most recent completed one.
+public class DashboardState {
+    public final AttendanceRecord activeRecord;
+    public final AttendanceRecord lastCompletedRecord;
+
+    public DashboardState(AttendanceRecord activeRecord, AttendanceRecord lastCompletedRecord) {
+        this.activeRecord = activeRecord;
+        this.lastCompletedRecord = lastCompletedRecord;
+    }
+
+    // Rows come from AttendanceDao.observeDashboardRecords()
+    public static DashboardState from(List<AttendanceRecord> records) {
+        AttendanceRecord active = null;
+        AttendanceRecord lastCompleted = null;
+        for (AttendanceRecord record : records) {
+            if (record.checkOutMillis == null) {
+                active = record;
+            } else {
+                lastCompleted = record;
+            }
+        }
+        return new DashboardState(active, lastCompleted);
+    }
+
+    // Only the fields the screen renders count, so sync/track writes do not trigger a redraw
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DashboardState)) return false;
+        DashboardState other = (DashboardState) o;
+        return sameForDisplay(activeRecord, other.activeRecord)
+                && sameForDisplay(lastCompletedRecord, other.lastCompletedRecord);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                activeRecord != null ? activeRecord.id : null,
+                lastCompletedRecord != null ? lastCompletedRecord.id : null);
+    }
+
+    private static boolean sameForDisplay(AttendanceRecord a, AttendanceRecord b) {
+        if (a == null || b == null) return a == b;
+        return a.id == b.id
+                && a.checkInMillis == b.checkInMillis
+                && Objects.equals(a.checkOutMillis, b.checkOutMillis)
+                && a.durationMillis == b.durationMillis
+                && a.officeName.equals(b.officeName);
+    }
+}
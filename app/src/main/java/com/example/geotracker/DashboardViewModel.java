@@ -0,0 +1,25 @@
+package com.example.geotracker;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+
+// Holds the dashboard projection across configuration changes. Room re-runs the query only when
+// attendance_records is written, and distinctUntilChanged drops results the screen would not show.
+public class DashboardViewModel extends AndroidViewModel {
+    private final LiveData<DashboardState> state;
+
+    public DashboardViewModel(@NonNull Application application) {
+        super(application);
+        AttendanceDao dao = AppDatabase.getInstance(application).attendanceDao();
+        state = Transformations.distinctUntilChanged(
+                Transformations.map(dao.observeDashboardRecords(), DashboardState::from));
+    }
+
+    public LiveData<DashboardState> getState() {
+        return state;
+    }
+}
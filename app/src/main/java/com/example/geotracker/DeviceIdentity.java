@@ -0,0 +1,31 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.UUID;
+
+// Random id generated once per installation. Local record ids restart on reinstall, so pairing
+// them with this id keeps derived document ids unique without any hardware identifier.
+public class DeviceIdentity {
+    private static final String PREFS_NAME = "DevicePrefs";
+    private static final String KEY_INSTALLATION_ID = "installationId";
+
+    private static volatile String installationId;
+
+    public static String getInstallationId(Context context) {
+        if (installationId == null) {
+            synchronized (DeviceIdentity.class) {
+                if (installationId == null) {
+                    SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                    String id = prefs.getString(KEY_INSTALLATION_ID, null);
+                    if (id == null) {
+                        id = UUID.randomUUID().toString();
+                        prefs.edit().putString(KEY_INSTALLATION_ID, id).commit();
+                    }
+                    installationId = id;
+                }
+            }
+        }
+        return installationId;
+    }
+}
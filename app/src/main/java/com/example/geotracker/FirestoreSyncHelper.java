@@ -2,74 +2,174 @@ package com.example.geotracker;
 
 import android.content.Context;
 import android.util.Log;
-import com.google.firebase.firestore.FirebaseFirestore;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Set;
 
 public class FirestoreSyncHelper {
     private static final String TAG = "FirestoreSyncHelper";
-    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    // Firestore rejects batches with more than 500 writes; a window never holds more records than entries
+    static final int MAX_BATCH_SIZE = 500;
 
-    public void syncRecords(Context context) {
-        executor.execute(() -> {
-            AppDatabase appDb = AppDatabase.getInstance(context);
-            AttendanceDao dao = appDb.attendanceDao();
+    private final SyncTransport transport;
+    private final AppDatabase appDb;
+    private final String installationId;
 
-            // Get only completed but unsynced records
-            List<AttendanceRecord> unsyncedRecords = dao.getUnsyncedCompletedRecords();
+    public FirestoreSyncHelper(Context context) {
+        this(SyncTransports.create(context), AppDatabase.getInstance(context), DeviceIdentity.getInstallationId(context));
+    }
 
-            if (unsyncedRecords.isEmpty()) {
-                Log.d(TAG, "No new records to sync.");
-                return;
-            }
+    public FirestoreSyncHelper(SyncTransport transport, AppDatabase appDb, String installationId) {
+        this.transport = transport;
+        this.appDb = appDb;
+        this.installationId = installationId;
+    }
 
-            Log.d(TAG, "Found " + unsyncedRecords.size() + " records to sync.");
+    // Stable id for a record's document, so uploading the same record again, from a retry or a
+    // concurrent run, overwrites one document instead of creating a duplicate
+    public static String documentIdFor(AttendanceRecord record, String installationId) {
+        return record.userId + "_" + installationId + "_" + record.id;
+    }
 
-            for (AttendanceRecord record : unsyncedRecords) {
-                // Use the userId stored in the record, which is safer for background tasks.
-                if (record.userId == null || record.userId.isEmpty()) {
-                    Log.w(TAG, "Skipping record with no user ID: " + record.id);
-                    continue;
-                }
+    // Uploads one lane's outbox entries past its cursor, in seq order, and blocks until done.
+    // Several entries for one record collapse into a single write of its current state. Lanes
+    // have separate cursors, so a bulk backlog never holds back the events lane. Must not be
+    // called on the main thread.
+    public SyncResult syncNow(String lane) {
+        SyncRunStats stats = new SyncRunStats(lane, transport.name(), System.currentTimeMillis());
+        long started = System.nanoTime();
+        boolean aborted = run(lane, stats);
+        stats.aborted = aborted;
+        stats.elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        return new SyncResult(stats.records, stats.rejected, aborted, stats.bytes, stats);
+    }
 
-                Map<String, Object> recordData = new HashMap<>();
-                recordData.put("officeName", record.officeName);
-                recordData.put("checkInTime", record.checkInTime);
-                recordData.put("checkOutTime", record.checkOutTime);
-                recordData.put("userId", record.userId);
-
-                // Use the record's firestoreId if it exists, otherwise it's a new document
-                String documentId = record.firestoreId;
-
-                if (documentId == null) {
-                    // New record - add to Firestore
-                    db.collection("attendance")
-                            .add(recordData)
-                            .addOnSuccessListener(documentReference -> {
-                                Log.d(TAG, "Record successfully added to Firestore with ID: " + documentReference.getId());
-                                // Update the local record with the new Firestore ID and set synced flag
-                                record.firestoreId = documentReference.getId();
-                                record.synced = true;
-                                executor.execute(() -> dao.update(record));
-                            })
-                            .addOnFailureListener(e ->
-                                    Log.e(TAG, "Error adding document for record ID " + record.id, e));
+    // Returns true when the run stopped early because the backend was unreachable
+    private boolean run(String lane, SyncRunStats stats) {
+        OutboxDao outbox = appDb.outboxDao();
+        Long storedCursor = outbox.getCursor(lane);
+        long cursor = storedCursor != null ? storedCursor : 0;
+
+        int pending = outbox.countAfter(lane, cursor);
+        stats.pendingAtStart = pending;
+        if (pending == 0) {
+            Log.d(TAG, "No new " + lane + " entries to sync.");
+            return false;
+        }
+        Long oldest = outbox.getOldestCreatedAfter(lane, cursor);
+        if (oldest != null) {
+            stats.oldestQueueAgeMillis = Math.max(0, stats.startedAtMillis - oldest);
+        }
+
+        Log.d(TAG, "Found " + pending + " " + lane + " outbox entries to sync, oldest "
+                + stats.oldestQueueAgeMillis / 1000 + "s old.");
+
+        int windowSize = MAX_BATCH_SIZE;
+        // Last entry of the most recent window the transport rejected, which holds the entry at
+        // fault. Windows stay halved only until the cursor has passed it.
+        long shrunkThrough = -1;
+        while (true) {
+            List<OutboxEntry> window = outbox.getEntriesAfter(lane, cursor, windowSize);
+            if (window.isEmpty()) {
+                break;
+            }
+            long windowEnd = window.get(window.size() - 1).seq;
+            List<AttendanceRecord> records = loadUploadable(window, lane);
+            try {
+                commitWindow(records, lane, windowEnd, stats);
+                stats.onAcknowledged(window, System.currentTimeMillis());
+                cursor = windowEnd;
+            } catch (SyncTransportException e) {
+                stats.onError(e.errorType);
+                if (e.unreachable) {
+                    Log.w(TAG, "Sync aborted after " + stats.records + " records; " + transport.name() + " unreachable", e);
+                    return true;
+                }
+                if (windowSize == 1) {
+                    // The record is rejected outright; acknowledge the entry so it cannot block
+                    // the queue. Its synced flag stays 0 and the next edit queues it again.
+                    Log.e(TAG, "Error syncing outbox entry " + windowEnd, e);
+                    acknowledge(lane, windowEnd);
+                    cursor = windowEnd;
+                    stats.rejected++;
                 } else {
-                    db.collection("attendance").document(documentId)
-                            .set(recordData)
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "Record successfully updated in Firestore: " + documentId);
-                                record.synced = true;
-                                executor.execute(() -> dao.update(record));
-                            })
-                            .addOnFailureListener(e ->
-                                    Log.e(TAG, "Error updating document " + documentId, e));
+                    windowSize = Math.max(1, windowSize / 2);
+                    shrunkThrough = windowEnd;
+                    stats.retries++;
+                    Log.w(TAG, "Batch failed, retrying with " + windowSize + " entries per batch", e);
+                    continue;
                 }
             }
+            if (windowSize < MAX_BATCH_SIZE && cursor >= shrunkThrough) {
+                // Everything the rejected window held is committed or dropped; one bad record
+                // must not leave the rest of the run in single-record batches
+                windowSize = MAX_BATCH_SIZE;
+                Log.d(TAG, "Rejected entries cleared; back to " + windowSize + " entries per batch");
+            }
+        }
+        Log.d(TAG, "Synced " + stats.records + " " + lane + " records (" + stats.bytes + " bytes in "
+                + stats.batches + " batches via " + transport.name() + "), " + stats.rejected + " rejected.");
+        return false;
+    }
+
+    private List<AttendanceRecord> loadUploadable(List<OutboxEntry> window, String lane) {
+        Set<Integer> recordIds = new LinkedHashSet<>();
+        for (OutboxEntry entry : window) {
+            recordIds.add(entry.recordId);
+        }
+        List<AttendanceRecord> records = new ArrayList<>();
+        for (AttendanceRecord record : appDb.attendanceDao().getRecords(new ArrayList<>(recordIds))) {
+            // Use the userId stored in the record, which is safer for background tasks.
+            if (record.userId == null || record.userId.isEmpty()) {
+                Log.w(TAG, "Skipping record with no user ID: " + record.id);
+                continue;
+            }
+            if (OutboxEntry.LANE_EVENTS.equals(lane)) {
+                // Keep event uploads small; the track follows on the bulk lane and transports
+                // merge, so leaving it out does not clear one already uploaded
+                record.track = null;
+                record.trackPointCount = 0;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    // One atomic upload through the transport, then one Room transaction that marks the records
+    // synced, advances the cursor and drops the acknowledged outbox entries
+    private void commitWindow(List<AttendanceRecord> records, String lane, long windowEnd, SyncRunStats stats)
+            throws SyncTransportException {
+        Map<String, AttendanceRecord> batch = new LinkedHashMap<>();
+        for (AttendanceRecord record : records) {
+            // Records uploaded before ids were derived keep the id Firestore generated for them
+            String documentId = record.firestoreId != null
+                    ? record.firestoreId
+                    : documentIdFor(record, installationId);
+            batch.put(documentId, record);
+        }
+
+        if (!batch.isEmpty()) {
+            long uploadStarted = System.nanoTime();
+            long bytes = transport.upload(batch);
+            stats.onBatch(batch.size(), bytes, (System.nanoTime() - uploadStarted) / 1_000_000);
+        }
+
+        AttendanceDao dao = appDb.attendanceDao();
+        appDb.runInTransaction(() -> {
+            for (Map.Entry<String, AttendanceRecord> entry : batch.entrySet()) {
+                dao.markSynced(entry.getValue().id, entry.getKey());
+            }
+            acknowledge(lane, windowEnd);
+        });
+    }
+
+    private void acknowledge(String lane, long seq) {
+        appDb.runInTransaction(() -> {
+            appDb.outboxDao().setCursor(new SyncCursor(lane, seq));
+            appDb.outboxDao().compactThrough(lane, seq);
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.example.geotracker;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class FirestoreSyncTransport implements SyncTransport {
+    private static final String COLLECTION = "attendance";
+    private static final long COMMIT_TIMEOUT_SECONDS = 30;
+
+    private final FirebaseFirestore db;
+
+    public FirestoreSyncTransport(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public long upload(Map<String, AttendanceRecord> batch) throws SyncTransportException {
+        CollectionReference collection = db.collection(COLLECTION);
+        WriteBatch writeBatch = db.batch();
+        long bytes = 0;
+        for (Map.Entry<String, AttendanceRecord> entry : batch.entrySet()) {
+            Map<String, Object> document = toDocument(entry.getValue());
+            // Merge, so an upload without a track keeps the track already stored
+            writeBatch.set(collection.document(entry.getKey()), document, SetOptions.merge());
+            bytes += estimateSize(entry.getKey(), document);
+        }
+
+        try {
+            Tasks.await(writeBatch.commit(), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new SyncTransportException("Firestore commit timed out", "timeout", true, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SyncTransportException("Interrupted", "interrupted", true, e);
+        } catch (ExecutionException e) {
+            throw new SyncTransportException("Firestore commit failed", errorType(e.getCause()),
+                    isUnavailable(e.getCause()), e.getCause());
+        }
+        return bytes;
+    }
+
+    @Override
+    public String name() {
+        return "firestore";
+    }
+
+    private static Map<String, Object> toDocument(AttendanceRecord record) {
+        Map<String, Object> recordData = new HashMap<>();
+        recordData.put("officeName", record.officeName);
+        recordData.put("checkInTime", TimeFormats.timestamp(record.checkInMillis));
+        recordData.put("checkOutTime", record.checkOutMillis != null ? TimeFormats.timestamp(record.checkOutMillis) : null);
+        recordData.put("checkInMillis", record.checkInMillis);
+        recordData.put("checkOutMillis", record.checkOutMillis);
+        recordData.put("durationMillis", record.durationMillis);
+        recordData.put("userId", record.userId);
+        if (record.track != null) {
+            recordData.put("track", Blob.fromBytes(record.track));
+            recordData.put("trackPointCount", record.trackPointCount);
+        }
+        return recordData;
+    }
+
+    // Firestore's documented storage size: field names + values + document name
+    private static long estimateSize(String documentId, Map<String, Object> document) {
+        long size = COLLECTION.length() + 1 + documentId.length() + 1 + 16;
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            size += field.getKey().length() + 1;
+            Object value = field.getValue();
+            if (value instanceof String) {
+                size += ((String) value).length() + 1;
+            } else if (value instanceof Blob) {
+                size += ((Blob) value).toBytes().length;
+            } else {
+                size += 8;
+            }
+        }
+        return size;
+    }
+
+    private static String errorType(Throwable error) {
+        if (error instanceof FirebaseFirestoreException) {
+            return "firestore." + ((FirebaseFirestoreException) error).getCode().name();
+        }
+        return error != null ? error.getClass().getSimpleName() : "unknown";
+    }
+
+    private static boolean isUnavailable(Throwable error) {
+        if (!(error instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) error).getCode();
+        return code == FirebaseFirestoreException.Code.UNAVAILABLE
+                || code == FirebaseFirestoreException.Code.DEADLINE_EXCEEDED
+                || code == FirebaseFirestoreException.Code.UNAUTHENTICATED;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.geotracker;
+
+public final class GeoMath {
+    static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private GeoMath() {
+    }
+
+    // Haversine; accurate to well under a meter at fence scale
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -3,29 +3,25 @@ package com.example.geotracker;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.location.Location;
 import android.os.Build;
 import android.util.Log;
 
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
-
 import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofencingEvent;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class GeofenceBroadcastReceiver extends BroadcastReceiver {
 
     private static final String TAG = "GeofenceReceiver";
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-    private final Executor executor = Executors.newSingleThreadExecutor();
-    private static final String OFFICE_NAME = "Headquarters";
+    // Shared serialized lane; a per-instance executor would leak a thread per broadcast
+    private final Executor executor = AppExecutors.getInstance().diskWrite();
+    // Set by MainActivity when it already knows which office the user is in
+    public static final String EXTRA_OFFICE_ID = "officeId";
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -37,11 +33,7 @@ public class GeofenceBroadcastReceiver extends BroadcastReceiver {
         }
 
         if ("MANUAL_CHECK_IN".equals(intent.getAction())) {
-            if (!WifiValidator.isConnectedToOfficeWifi(context)) {
-                NotificationHelper.sendNotification(context, "Verification Failed", "Connect to office WiFi to check-in");
-                return;
-            }
-            handleManualCheckIn(context);
+            handleManualCheckIn(context, intent.getIntExtra(EXTRA_OFFICE_ID, -1));
             return;
         }
 
@@ -52,108 +44,143 @@ public class GeofenceBroadcastReceiver extends BroadcastReceiver {
         }
 
         int transition = event.getGeofenceTransition();
-        String time = sdf.format(new Date());
+        long now = System.currentTimeMillis();
+        String time = TimeFormats.timestamp(now);
+
+        String officeRequestId = null;
+        List<Geofence> triggering = event.getTriggeringGeofences();
+        if (triggering != null) {
+            for (Geofence geofence : triggering) {
+                if (GeofenceHelper.RERANK_REQUEST_ID.equals(geofence.getRequestId())) {
+                    rerank(context, event.getTriggeringLocation());
+                } else if (officeRequestId == null) {
+                    officeRequestId = geofence.getRequestId();
+                }
+            }
+        }
+        if (officeRequestId == null) {
+            // Only the re-rank fence fired
+            return;
+        }
 
         if (transition == Geofence.GEOFENCE_TRANSITION_ENTER) {
-            if (!WifiValidator.isConnectedToOfficeWifi(context)) {
-                NotificationHelper.sendNotification(context, "Verification Failed", "Connect to office Wi-Fi to complete check-in");
-                return;
-            }
-            handleEnterTransition(context, time);
+            handleEnterTransition(context, officeRequestId, now);
+        } else if (transition == Geofence.GEOFENCE_TRANSITION_DWELL) {
+            handleDwellTransition(context, officeRequestId, now);
         } else if (transition == Geofence.GEOFENCE_TRANSITION_EXIT) {
-            handleExitTransition(context, time);
-            if (WifiValidator.isConnectedToOfficeWifi(context)) {
-                NotificationHelper.sendNotification(context, "Attention Needed", "You left the geofence but are still on office Wi-Fi");
-            }
+            handleExitTransition(context, officeRequestId, now);
         } else {
             NotificationHelper.sendNotification(context, "Geofence Alert", "Unknown geofence transition detected at " + time);
         }
-
-        sendUpdateUIBroadcast(context);
     }
 
-    private void sendUpdateUIBroadcast(Context context) {
-        Intent updateIntent = new Intent("com.example.geotracker.UPDATE_UI");
-        updateIntent.setPackage(context.getPackageName());
-        context.sendBroadcast(updateIntent);
+    private void rerank(Context context, Location location) {
+        if (location == null) {
+            return;
+        }
+        AppExecutors.getInstance().io().execute(() -> new GeofenceHelper(context).registerNearest(location));
     }
 
-    private void handleManualCheckIn(Context context) {
+    private void handleManualCheckIn(Context context, int officeId) {
+        long now = System.currentTimeMillis();
         executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(context);
-            AttendanceDao dao = db.attendanceDao();
-
-            if (dao.getActiveRecord() == null) {
-                String time = sdf.format(new Date());
-                AttendanceRecord record = new AttendanceRecord(OFFICE_NAME, time);
-
-                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                if (user != null) {
-                    record.userId = user.getUid();
-                }
-
-                dao.insert(record);
-
-                Intent serviceIntent = new Intent(context, LocationForegroundService.class);
-                serviceIntent.setAction(LocationForegroundService.ACTION_START_TRACKING);
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    context.startForegroundService(serviceIntent);
-                } else {
-                    context.startService(serviceIntent);
-                }
-
-                NotificationHelper.sendNotification(context, "Manual Check-In", "You were checked in at " + time);
+            Office office = OfficeRegistry.getInstance(context).forRequestId(OfficeRegistry.requestIdFor(officeId));
+            if (office == null) {
+                Log.w(TAG, "Manual check-in for unknown office " + officeId);
+                return;
+            }
+            // May read the access point table; kept off the main thread
+            if (!OfficeWifiMonitor.getInstance(context).verify(office.id)) {
+                NotificationHelper.sendNotification(context, "Verification Failed", "Connect to " + office.name + " WiFi to check-in");
+                return;
             }
+            AttendanceEvents.submit(context, AttendanceEngine.Event.manualCheckIn(
+                    office.id, office.name, currentUserId(), now));
         });
     }
 
-    private void handleEnterTransition(Context context, String time) {
+    // Never checks in by itself: the service watches local fixes until the dwell is confirmed
+    private void handleEnterTransition(Context context, String requestId, long now) {
         executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(context);
-            AttendanceDao dao = db.attendanceDao();
-
-            if (dao.getActiveRecord() == null) {
-                AttendanceRecord record = new AttendanceRecord(OFFICE_NAME, time);
-                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                if (user != null) {
-                    record.userId = user.getUid();
-                }
-                dao.insert(record);
-
-                Intent startServiceIntent = new Intent(context, LocationForegroundService.class);
-                startServiceIntent.setAction(LocationForegroundService.ACTION_START_TRACKING);
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    context.startForegroundService(startServiceIntent);
-                } else {
-                    context.startService(startServiceIntent);
-                }
-                NotificationHelper.sendNotification(context, "Geofence Entered", "You entered the geofence at " + time);
+            Office office = OfficeRegistry.getInstance(context).forRequestId(requestId);
+            if (office == null) {
+                return;
+            }
+            TransitionStateStore transitions = TransitionStateStore.getInstance(context);
+            transitions.onEnter(office.id, now);
+            if (transitions.getState() == TransitionDebouncer.State.ARRIVING
+                    && !SessionRepository.getInstance(context).hasActiveSession()) {
+                startService(context, LocationForegroundService.ACTION_WATCH_OFFICE, office.id);
             }
         });
     }
 
-    private void handleExitTransition(Context context, String time) {
+    private void handleDwellTransition(Context context, String requestId, long now) {
         executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(context);
-            AttendanceDao dao = db.attendanceDao();
+            Office office = OfficeRegistry.getInstance(context).forRequestId(requestId);
+            if (office == null) {
+                return;
+            }
+            if (office.outline() != null) {
+                // Dwelling in the coarse circle says nothing about being inside the outline; keep
+                // (or start) watching fixes instead
+                handleEnterTransition(context, requestId, now);
+                return;
+            }
+            if (TransitionStateStore.getInstance(context).onDwell(office.id, now) == TransitionDebouncer.Action.CHECK_IN) {
+                checkIn(context, office.id, now);
+            }
+        });
+    }
 
-            AttendanceRecord activeRecord = dao.getActiveRecord();
-            if (activeRecord != null) {
-                activeRecord.checkOutTime = time;
-                activeRecord.completed = true;
-                dao.update(activeRecord);
+    // Starts the grace period; the check-out itself comes from the service once it has expired
+    private void handleExitTransition(Context context, String requestId, long now) {
+        executor.execute(() -> {
+            Office office = OfficeRegistry.getInstance(context).forRequestId(requestId);
+            if (office != null) {
+                TransitionStateStore.getInstance(context).onExit(office.id, now);
+            }
+        });
+    }
 
-                Intent stopServiceIntent = new Intent(context, LocationForegroundService.class);
-                stopServiceIntent.setAction(LocationForegroundService.ACTION_STOP_TRACKING);
-                context.startService(stopServiceIntent);
+    // Also called by LocationForegroundService once its fixes confirm a dwell. Not on the main
+    // thread: here it runs on executor, in the service on its location thread.
+    static void checkIn(Context context, int officeId, long now) {
+        Office office = OfficeRegistry.getInstance(context).forRequestId(OfficeRegistry.requestIdFor(officeId));
+        if (office == null) {
+            Log.w(TAG, "Arrival at unknown office " + officeId + "; not checking in");
+            return;
+        }
+        // Only this office's access points count; being on another site's Wi-Fi is not enough
+        if (!OfficeWifiMonitor.getInstance(context).verify(office.id)) {
+            NotificationHelper.sendNotification(context, "Verification Failed", "Connect to " + office.name + " Wi-Fi to complete check-in");
+            // Forget the arrival; the next ENTER starts over instead of re-asking every dwell
+            TransitionStateStore.getInstance(context).reset();
+            if (!SessionRepository.getInstance(context).hasActiveSession()) {
+                startService(context, LocationForegroundService.ACTION_STOP_TRACKING, -1);
+            }
+            return;
+        }
+        AttendanceEvents.submit(context, AttendanceEngine.Event.enter(office.id, office.name, currentUserId(), now));
+    }
 
-                NotificationHelper.sendNotification(context, "Geofence Exited", "You exited the geofence at " + time);
+    private static void startService(Context context, String action, int officeId) {
+        Intent serviceIntent = new Intent(context, LocationForegroundService.class);
+        serviceIntent.setAction(action);
+        if (officeId >= 0) {
+            serviceIntent.putExtra(LocationForegroundService.EXTRA_OFFICE_ID, officeId);
+        }
+        if (LocationForegroundService.ACTION_STOP_TRACKING.equals(action)) {
+            context.startService(serviceIntent);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(serviceIntent);
+        } else {
+            context.startService(serviceIntent);
+        }
+    }
 
-                // Trigger sync using WorkManager for reliability
-                Log.d(TAG, "Enqueuing SyncWorker to sync completed session.");
-                OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-                WorkManager.getInstance(context).enqueue(syncWorkRequest);
-            }
-        });
+    private static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
     }
-}
\ No newline at end of file
+}
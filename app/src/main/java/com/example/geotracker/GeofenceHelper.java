@@ -1,83 +1,162 @@
 package com.example.geotracker;
 
+import android.Manifest;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
 import android.os.Build;
 import android.util.Log;
 
+import androidx.core.app.ActivityCompat;
+
 import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofencingClient;
 import com.google.android.gms.location.GeofencingRequest;
 import com.google.android.gms.location.LocationServices;
 
-import java.util.ArrayList;
 import java.util.List;
 
+// Registers geofences for the offices nearest to the user, plus one "re-rank" fence around the
+// point they were ranked from. Leaving the re-rank fence ranks again from the new position, so
+// the registered set follows the user without ever exceeding Play services' 100-fence limit.
 public class GeofenceHelper {
 
     private static final String TAG = "GeofenceHelper";
-    private static final String PREFS_NAME = "SavedGeofences";
+    static final String PREFS_NAME = "SavedGeofences";
+    static final String RERANK_REQUEST_ID = "RERANK";
+    // Play services allows 100 per app; leave headroom for the re-rank fence
+    static final int MAX_OFFICE_FENCES = 90;
+    private static final float MIN_RERANK_RADIUS = 1_000;
+    private static final float MAX_RERANK_RADIUS = 50_000;
+
+    private static final String KEY_CENTER_LAT = "centerLat";
+    private static final String KEY_CENTER_LNG = "centerLng";
 
     private final Context context;
     private final GeofencingClient geofencingClient;
 
     public GeofenceHelper(Context context) {
-        this.context = context;
+        this.context = context.getApplicationContext();
         this.geofencingClient = LocationServices.getGeofencingClient(context);
     }
 
+    // Re-registers around the last ranking point (e.g. after a reboot, which clears all fences),
+    // or around the last known location on first run. Reads Room; call off the main thread.
     public void reRegisterGeofences() {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.contains(KEY_CENTER_LAT)) {
+            registerNearest(prefs.getFloat(KEY_CENTER_LAT, 0), prefs.getFloat(KEY_CENTER_LNG, 0));
+            return;
+        }
+        if (!hasLocationPermission()) {
+            Log.w(TAG, "No location permission; cannot register geofences.");
+            return;
+        }
+        LocationServices.getFusedLocationProviderClient(context).getLastLocation()
+                .addOnSuccessListener(AppExecutors.getInstance().io(), location -> {
+                    if (location != null) {
+                        registerNearest(location.getLatitude(), location.getLongitude());
+                    } else {
+                        registerNearest(AppDatabase.HEADQUARTERS_LAT, AppDatabase.HEADQUARTERS_LON);
+                    }
+                });
+    }
 
-        String id = prefs.getString("geofenceId", null);
-        float lat = prefs.getFloat("lat", 0);
-        float lng = prefs.getFloat("lng", 0);
-        float radius = prefs.getFloat("radius", 0);
+    public void registerNearest(Location location) {
+        registerNearest(location.getLatitude(), location.getLongitude());
+    }
 
-        if (id == null || radius == 0) {
-            Log.w(TAG, "No saved geofence to re-register.");
+    // Replaces every fence of this app with the nearest offices to the point. Reads Room; call
+    // off the main thread.
+    public void registerNearest(double latitude, double longitude) {
+        if (!hasLocationPermission()) {
+            Log.w(TAG, "No location permission; cannot register geofences.");
             return;
         }
-
-        Geofence geofence = new Geofence.Builder()
-                .setRequestId(id)
-                .setCircularRegion(lat, lng, radius)
-                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
+        List<Office> offices = OfficeRegistry.getInstance(context).nearest(latitude, longitude, MAX_OFFICE_FENCES);
+
+        GeofencingRequest.Builder request = new GeofencingRequest.Builder()
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER | GeofencingRequest.INITIAL_TRIGGER_DWELL);
+        // None of these transitions check in or out by themselves; they feed TransitionStateStore,
+        // which waits for DWELL (or a confirming fix) and sits out a grace period after EXIT. A
+        // footprint office's circle encloses its outline and only wakes the app.
+        int loiteringDelay = (int) TransitionStateStore.getInstance(context).getConfig().dwellMillis;
+        for (Office office : offices) {
+            request.addGeofence(new Geofence.Builder()
+                    .setRequestId(OfficeRegistry.requestIdFor(office))
+                    .setCircularRegion(office.latitude, office.longitude, office.radiusMeters)
+                    .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_DWELL
+                            | Geofence.GEOFENCE_TRANSITION_EXIT)
+                    .setLoiteringDelay(loiteringDelay)
+                    .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                    .build());
+        }
+        float rerankRadius = rerankRadius(latitude, longitude, offices);
+        request.addGeofence(new Geofence.Builder()
+                .setRequestId(RERANK_REQUEST_ID)
+                .setCircularRegion(latitude, longitude, rerankRadius)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
                 .setExpirationDuration(Geofence.NEVER_EXPIRE)
-                .build();
+                .build());
+
+        PendingIntent pendingIntent = getPendingIntent(context);
+        try {
+            geofencingClient.removeGeofences(pendingIntent)
+                    .continueWithTask(task -> geofencingClient.addGeofences(request.build(), pendingIntent))
+                    .addOnSuccessListener(aVoid -> {
+                        saveRankCenter(latitude, longitude);
+                        Log.d(TAG, "Registered " + offices.size() + " office geofences, re-rank radius "
+                                + Math.round(rerankRadius) + " m");
+                    })
+                    .addOnFailureListener(e -> Log.e(TAG, "Failed to register geofences: " + e.getMessage()));
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission revoked while registering geofences", e);
+        }
+    }
 
-        GeofencingRequest request = new GeofencingRequest.Builder()
-                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
-                .addGeofence(geofence)
-                .build();
+    // Half the distance to the farthest registered office: a user can move that far before an
+    // unregistered office could be closer than one that is registered
+    private static float rerankRadius(double latitude, double longitude, List<Office> offices) {
+        if (offices.size() < MAX_OFFICE_FENCES) {
+            return MAX_RERANK_RADIUS;
+        }
+        Office farthest = offices.get(offices.size() - 1);
+        double distance = GeoMath.distanceMeters(latitude, longitude, farthest.latitude, farthest.longitude);
+        return (float) Math.max(MIN_RERANK_RADIUS, Math.min(MAX_RERANK_RADIUS, distance / 2));
+    }
 
+    // Same PendingIntent MainActivity uses to remove the fences on logout
+    static PendingIntent getPendingIntent(Context context) {
         Intent intent = new Intent(context, GeofenceBroadcastReceiver.class);
         int flags = PendingIntent.FLAG_UPDATE_CURRENT;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             flags |= PendingIntent.FLAG_MUTABLE;
         }
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context, 0, intent, flags);
+        return PendingIntent.getBroadcast(context, 0, intent, flags);
+    }
 
-        geofencingClient.addGeofences(request, pendingIntent)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Geofence re-registered"))
-                .addOnFailureListener(e -> Log.e(TAG, "Failed to re-register geofence: " + e.getMessage()));
+    private boolean hasLocationPermission() {
+        return ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
     }
 
-    public static void saveGeofenceToPrefs(Context context, String id, float lat, float lng, float radius) {
-        SharedPreferences.Editor editor = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
-        editor.putString("geofenceId", id);
-        editor.putFloat("lat", lat);
-        editor.putFloat("lng", lng);
-        editor.putFloat("radius", radius);
-        editor.apply();
+    private void saveRankCenter(double latitude, double longitude) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putFloat(KEY_CENTER_LAT, (float) latitude)
+                .putFloat(KEY_CENTER_LNG, (float) longitude)
+                .apply();
     }
 
-    public static boolean isGeofenceAlreadyAdded(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.contains("geofenceId"); // Fixed to check correct prefs
+    // The office the user is in; LocationForegroundService samples relative to its edge
+    public static void saveActiveOffice(Context context, Office office) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        editor.putString("geofenceId", OfficeRegistry.requestIdFor(office));
+        editor.putFloat("lat", (float) office.latitude);
+        editor.putFloat("lng", (float) office.longitude);
+        editor.putFloat("radius", office.radiusMeters);
+        editor.apply();
     }
 
 }
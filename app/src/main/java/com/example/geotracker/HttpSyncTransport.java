@@ -0,0 +1,152 @@
+package com.example.geotracker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Posts each batch as one gzip-compressed JSON document to a configurable endpoint. The server
+// is expected to upsert by "id", merging fields so a record sent without "track" keeps the
+// stored one, and to answer 2xx only once the whole batch is stored.
+//
+//   {"device":"...","records":[{"id":"...","userId":"...","officeName":"...",
+//     "checkInMillis":0,"checkOutMillis":0,"durationMillis":0,"track":"<base64>","trackPointCount":0}]}
+public class HttpSyncTransport implements SyncTransport {
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final URL endpoint;
+    private final String installationId;
+    private final String authToken;
+
+    public HttpSyncTransport(URL endpoint, String installationId, String authToken) {
+        this.endpoint = endpoint;
+        this.installationId = installationId;
+        this.authToken = authToken;
+    }
+
+    @Override
+    public long upload(Map<String, AttendanceRecord> batch) throws SyncTransportException {
+        byte[] body;
+        try {
+            body = gzip(toJson(batch));
+        } catch (IOException e) {
+            throw new SyncTransportException("Could not encode batch", "encode", false, e);
+        }
+
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) endpoint.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            if (authToken != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + authToken);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            if (status >= 200 && status < 300) {
+                return body.length;
+            }
+            // 408/429/5xx are the server's problem and worth retrying later; other 4xx reject the batch
+            boolean unreachable = status == 408 || status == 429 || status >= 500;
+            throw new SyncTransportException("HTTP " + status, "http." + status, unreachable, null);
+        } catch (IOException e) {
+            throw new SyncTransportException("HTTP upload failed", "io." + e.getClass().getSimpleName(), true, e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    String toJson(Map<String, AttendanceRecord> batch) {
+        StringBuilder json = new StringBuilder(64 + batch.size() * 256);
+        json.append("{\"device\":");
+        appendString(json, installationId);
+        json.append(",\"records\":[");
+        boolean first = true;
+        for (Map.Entry<String, AttendanceRecord> entry : batch.entrySet()) {
+            AttendanceRecord record = entry.getValue();
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"id\":");
+            appendString(json, entry.getKey());
+            json.append(",\"userId\":");
+            appendString(json, record.userId);
+            json.append(",\"officeName\":");
+            appendString(json, record.officeName);
+            json.append(",\"checkInMillis\":").append(record.checkInMillis);
+            json.append(",\"checkOutMillis\":").append(record.checkOutMillis);
+            json.append(",\"durationMillis\":").append(record.durationMillis);
+            if (record.track != null) {
+                json.append(",\"track\":\"").append(Base64.getEncoder().encodeToString(record.track)).append('"');
+                json.append(",\"trackPointCount\":").append(record.trackPointCount);
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) return;
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // discard; keeps the connection reusable
+            }
+        }
+    }
+}
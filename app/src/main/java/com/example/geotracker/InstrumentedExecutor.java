@@ -0,0 +1,135 @@
+package com.example.geotracker;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A fixed-size, bounded executor lane that records queue depth and how long tasks wait and run.
+// A lane built with direct() runs tasks inline on the caller, for tests.
+public class InstrumentedExecutor implements Executor {
+    private final String name;
+    private final ThreadFactory factory;
+    // Null for a direct() lane
+    private final ThreadPoolExecutor pool;
+    // Created on the first task the pool turns away
+    private ExecutorService overflow;
+
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public InstrumentedExecutor(String name, int threads, int queueCapacity) {
+        this.name = name;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.factory = runnable -> {
+            Thread thread = new Thread(runnable, "geo-" + name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Past the queue bound the task goes to one overflow thread. Running it on the caller
+        // would put blocking Room or network work on whichever thread submitted it, the main
+        // thread included; dropping it would lose a check-in or a sync.
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), factory,
+                (task, executor) -> {
+                    overflowed.incrementAndGet();
+                    overflow().execute(task);
+                });
+    }
+
+    private InstrumentedExecutor(String name) {
+        this.name = name;
+        this.factory = null;
+        this.pool = null;
+    }
+
+    public static InstrumentedExecutor direct(String name) {
+        return new InstrumentedExecutor(name);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        final long enqueuedAt = System.nanoTime();
+        Runnable timed = () -> {
+            long startedAt = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                long finishedAt = System.nanoTime();
+                record(startedAt - enqueuedAt, finishedAt - startedAt);
+            }
+        };
+        if (pool == null) {
+            timed.run();
+            return;
+        }
+        pool.execute(timed);
+        updateMax(maxQueueDepth, pool.getQueue().size());
+    }
+
+    public int queueDepth() {
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    public long completedCount() {
+        return completed.get();
+    }
+
+    // Tasks the full queue handed to the overflow thread
+    public long overflowCount() {
+        return overflowed.get();
+    }
+
+    public String describe() {
+        long done = completed.get();
+        return String.format(Locale.US,
+                "%s: queued=%d maxQueued=%d done=%d overflowed=%d wait(avg=%.1fms max=%.1fms) run(avg=%.1fms max=%.1fms)",
+                name, queueDepth(), maxQueueDepth.get(), done, overflowed.get(),
+                done == 0 ? 0 : totalWaitNanos.get() / 1e6 / done, maxWaitNanos.get() / 1e6,
+                done == 0 ? 0 : totalRunNanos.get() / 1e6 / done, maxRunNanos.get() / 1e6);
+    }
+
+    private synchronized ExecutorService overflow() {
+        if (overflow == null) {
+            overflow = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = factory.newThread(runnable);
+                thread.setName("geo-" + name + "-overflow");
+                return thread;
+            });
+        }
+        return overflow;
+    }
+
+    private void record(long waitNanos, long runNanos) {
+        completed.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        totalRunNanos.addAndGet(runNanos);
+        updateMax(maxWaitNanos, waitNanos);
+        updateMax(maxRunNanos, runNanos);
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+}
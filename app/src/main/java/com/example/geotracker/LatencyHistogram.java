@@ -0,0 +1,110 @@
+package com.example.geotracker;
+
+import java.util.Arrays;
+
+// Fixed-bucket latency histogram, small enough to store one per sync run. Bucket bounds run
+// from 100 ms (a fast batch commit) to a day (an entry queued while the device was offline).
+public final class LatencyHistogram {
+    static final long[] UPPER_BOUNDS_MS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000,
+            300_000, 900_000, 3_600_000, 21_600_000, 86_400_000, Long.MAX_VALUE
+    };
+
+    private final long[] counts = new long[UPPER_BOUNDS_MS.length];
+    private long max;
+
+    public void record(long millis) {
+        millis = Math.max(0, millis);
+        int bucket = 0;
+        while (millis > UPPER_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        max = Math.max(max, millis);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    // Upper bound of the bucket holding the given quantile (0..1), capped at the largest value
+    // seen; 0 when empty
+    public long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(UPPER_BOUNDS_MS[i], max);
+            }
+        }
+        return max;
+    }
+
+    // "max|c0,c1,...", trailing empty buckets dropped
+    public String encode() {
+        int last = counts.length - 1;
+        while (last >= 0 && counts[last] == 0) {
+            last--;
+        }
+        StringBuilder out = new StringBuilder().append(max).append('|');
+        for (int i = 0; i <= last; i++) {
+            if (i > 0) out.append(',');
+            out.append(counts[i]);
+        }
+        return out.toString();
+    }
+
+    public static LatencyHistogram decode(String encoded) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (encoded == null || encoded.isEmpty()) {
+            return histogram;
+        }
+        int bar = encoded.indexOf('|');
+        histogram.max = Long.parseLong(encoded.substring(0, bar));
+        String buckets = encoded.substring(bar + 1);
+        if (!buckets.isEmpty()) {
+            String[] parts = buckets.split(",");
+            for (int i = 0; i < parts.length && i < histogram.counts.length; i++) {
+                histogram.counts[i] = Long.parseLong(parts[i]);
+            }
+        }
+        return histogram;
+    }
+
+    public String summary() {
+        return "n=" + count() + " p50=" + percentile(0.5) + "ms p90=" + percentile(0.9)
+                + "ms p99=" + percentile(0.99) + "ms max=" + max + "ms";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LatencyHistogram)) return false;
+        LatencyHistogram other = (LatencyHistogram) o;
+        return max == other.max && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(counts) + Long.hashCode(max);
+    }
+}
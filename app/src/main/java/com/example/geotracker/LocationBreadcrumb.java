@@ -0,0 +1,31 @@
+package com.example.geotracker;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "location_breadcrumbs",
+        foreignKeys = @ForeignKey(entity = AttendanceRecord.class,
+                parentColumns = "id",
+                childColumns = "recordId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("recordId")})
+public class LocationBreadcrumb {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    public int recordId;
+    public double latitude;
+    public double longitude;
+    public float accuracy;
+    public long timeMillis;
+
+    public LocationBreadcrumb(int recordId, double latitude, double longitude, float accuracy, long timeMillis) {
+        this.recordId = recordId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.timeMillis = timeMillis;
+    }
+}
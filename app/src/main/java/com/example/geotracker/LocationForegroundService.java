@@ -2,11 +2,12 @@ package com.example.geotracker;
 
 import android.app.Service;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.os.Build;
+import android.os.HandlerThread;
 import android.os.IBinder;
-import android.os.Looper;
 import android.util.Log;
 import android.os.Handler;
 
@@ -22,16 +23,53 @@ public class LocationForegroundService extends Service {
     private static final String CHANNEL_ID = "location_channel";
     private static final int NOTIFICATION_ID = 1001;
 
-    private final Handler wifiCheckHandler = new Handler(Looper.getMainLooper());
-    private static final long WIFI_CHECK_INTERVAL = 300000; // 5 minutes
-
     private FusedLocationProviderClient fusedLocationClient;
+    // Location batches are processed here, never on the main looper
+    private HandlerThread locationThread;
+    private Handler locationHandler;
     private LocationCallback locationCallback;
-    private boolean isTracking = false; // State flag to prevent multiple starts/stops
+    private volatile boolean isTracking = false; // State flag to prevent multiple starts/stops
+    // Running without a session: an office fence was entered and fixes are fed to
+    // TransitionStateStore until the arrival is confirmed (or called off)
+    private volatile boolean isWatching = false;
+
+    private BreadcrumbBuffer breadcrumbBuffer;
+    // Only touched on locationThread once tracking has started
+    private AdaptiveSamplingPolicy samplingPolicy;
+    // Office whose fence fixes are evaluated against; also read by the WiFi listener
+    private volatile Office fenceOffice;
+    private TransitionStateStore transitions;
+    // Whether the device was last seen on the session office's WiFi, so only a drop warns
+    private volatile boolean onSessionWifi;
+    // Called on the ConnectivityManager thread on any office WiFi change, including roaming to
+    // another site's access point
+    private final OfficeWifiPresence.Listener wifiListener = () -> {
+        boolean was = onSessionWifi;
+        onSessionWifi = isOnSessionWifi(false);
+        if (isTracking && was && !onSessionWifi) {
+            notifyWifiLost();
+        }
+    };
+    private final Runnable watchTimeout = () -> {
+        if (isWatching) {
+            Log.d(TAG, "Arrival never confirmed; stopping the watch");
+            transitions.reset();
+            stopTracking();
+        }
+    };
+    // Fires when the grace period after an exit runs out, in case no fix arrives to notice
+    private final Runnable fenceDeadline = () -> {
+        if (fenceOffice != null) {
+            dispatch(transitions.tick(System.currentTimeMillis()), fenceOffice);
+        }
+    };
 
     // Actions
     public static final String ACTION_START_TRACKING = "com.example.geotracker.START_TRACKING";
     public static final String ACTION_STOP_TRACKING = "com.example.geotracker.STOP_TRACKING";
+    public static final String ACTION_WATCH_OFFICE = "com.example.geotracker.WATCH_OFFICE";
+    public static final String EXTRA_OFFICE_ID = "officeId";
+    private static final long WATCH_TIMEOUT_MS = 30 * 60_000;
 
 
     @Override
@@ -39,6 +77,21 @@ public class LocationForegroundService extends Service {
         super.onCreate();
         Log.d(TAG, "Service onCreate called");
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        locationThread = new HandlerThread("location-processing");
+        locationThread.start();
+        locationHandler = new Handler(locationThread.getLooper());
+        breadcrumbBuffer = new BreadcrumbBuffer(this, AppExecutors.getInstance().diskWrite(), locationHandler);
+        transitions = TransitionStateStore.getInstance(this);
+        locationCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(LocationResult result) {
+                if (result != null && !result.getLocations().isEmpty()) {
+                    onLocations(result);
+                } else {
+                    Log.w(TAG, "Location result is null");
+                }
+            }
+        };
     }
 
     // This method is now the command router for the service
@@ -55,6 +108,9 @@ public class LocationForegroundService extends Service {
                 case ACTION_STOP_TRACKING:
                     stopTracking();
                     break;
+                case ACTION_WATCH_OFFICE:
+                    watchOffice(intent.getIntExtra(EXTRA_OFFICE_ID, -1));
+                    break;
             }
         }
         // Use START_STICKY to ensure the service is restarted if killed by the system
@@ -68,29 +124,37 @@ public class LocationForegroundService extends Service {
             Log.d(TAG, "Service is already tracking. Ignoring start command.");
             return;
         }
+        // A watch that led to this check-in simply carries on as the session
+        isWatching = false;
         isTracking = true;
         Log.d(TAG, "Starting location tracking...");
 
         // Start the service in the foreground
         startForeground(NOTIFICATION_ID, NotificationHelper.getForegroundNotification(this));
+        breadcrumbBuffer.bindToActiveSession();
 
-        LocationRequest locationRequest = LocationRequest.create()
-                .setInterval(5000)
-                .setFastestInterval(2000)
-                .setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
+        if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "Location permission not granted. Stopping service.");
+            stopTracking();
+            return;
+        }
 
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(LocationResult result) {
-                if (result != null && result.getLastLocation() != null) {
-                    Location location = result.getLastLocation();
-                    Log.d(TAG, "Location update: Lat=" + location.getLatitude() + ", Lon=" + location.getLongitude());
-                    // TODO: Handle location update (send to server, save, etc.)
-                } else {
-                    Log.w(TAG, "Location result is null");
-                }
-            }
-        };
+        locationHandler.removeCallbacks(watchTimeout);
+        // The active office is read from Room, so the fence is set up on the location thread
+        locationHandler.post(() -> startFence(loadActiveOffice()));
+        startWifiWatch();
+    }
+
+    // Entered an office fence; sample until TransitionStateStore confirms the dwell from fixes
+    // (then checked in on office Wi-Fi) or calls the arrival off
+    private void watchOffice(int officeId) {
+        if (isTracking || isWatching) {
+            Log.d(TAG, "Already tracking or watching. Ignoring watch command.");
+            return;
+        }
+        isWatching = true;
+        Log.d(TAG, "Watching office " + officeId + " to confirm the arrival");
+        startForeground(NOTIFICATION_ID, NotificationHelper.getForegroundNotification(this));
 
         if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             Log.e(TAG, "Location permission not granted. Stopping service.");
@@ -98,18 +162,137 @@ public class LocationForegroundService extends Service {
             return;
         }
 
-        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
-        Log.d(TAG, "Location updates requested");
-        startPeriodicWifiChecks();
+        locationHandler.post(() -> {
+            Office office = OfficeRegistry.getInstance(this).forRequestId(OfficeRegistry.requestIdFor(officeId));
+            if (office == null) {
+                Log.w(TAG, "Office " + officeId + " not found; nothing to watch");
+                stopTracking();
+                return;
+            }
+            startFence(office);
+        });
+        locationHandler.postDelayed(watchTimeout, WATCH_TIMEOUT_MS);
+    }
+
+    // Runs on locationThread
+    private void startFence(Office office) {
+        fenceOffice = office;
+        if (isTracking && office != null) {
+            // However the session was opened, the debouncer now knows it is inside
+            transitions.onCheckedIn(office.id, System.currentTimeMillis());
+        }
+        samplingPolicy = createSamplingPolicy(office);
+        requestLocationUpdates(samplingPolicy.getMode());
+    }
+
+    // Runs on locationThread
+    private void onLocations(LocationResult result) {
+        AdaptiveSamplingPolicy policy = samplingPolicy;
+        if (policy == null) {
+            return;
+        }
+        AdaptiveSamplingPolicy.Mode before = policy.getMode();
+        for (Location location : result.getLocations()) {
+            if (isTracking) {
+                breadcrumbBuffer.add(location);
+            }
+            policy.onFix(location.getLatitude(), location.getLongitude(),
+                    location.hasAccuracy() ? location.getAccuracy() : Float.NaN,
+                    location.hasSpeed() ? location.getSpeed() : Float.NaN,
+                    location.getTime());
+        }
+        checkFence(result.getLastLocation());
+        BootSnapshotStore.getInstance(this).recordFix(result.getLastLocation());
+        if (policy.getMode() != before) {
+            Log.d(TAG, "Sampling " + before + " -> " + policy.getMode());
+            requestLocationUpdates(policy.getMode());
+        }
+    }
+
+    // Fixes near the edge only move the debouncer between states; a check-in or check-out is
+    // reported once the dwell or grace has been confirmed
+    private void checkFence(Location fix) {
+        Office office = fenceOffice;
+        if (office == null || fix == null) {
+            return;
+        }
+        TransitionDebouncer.Zone zone = TransitionDebouncer.zoneOf(office, fix.getLatitude(), fix.getLongitude(),
+                fix.hasAccuracy() ? fix.getAccuracy() : Float.NaN, transitions.getConfig());
+        dispatch(transitions.onFix(office.id, zone, fix.getTime()), office);
+        if (isWatching && transitions.getState() == TransitionDebouncer.State.OUTSIDE) {
+            Log.d(TAG, "Left " + office.name + " without arriving; stopping the watch");
+            stopTracking();
+        }
+    }
+
+    // Runs on locationThread
+    private void dispatch(TransitionDebouncer.Action action, Office office) {
+        locationHandler.removeCallbacks(fenceDeadline);
+        // Straight to the engine, never through a broadcast another app could forge
+        if (action == TransitionDebouncer.Action.CHECK_IN) {
+            Log.d(TAG, "Arrival at " + office.name + " confirmed");
+            GeofenceBroadcastReceiver.checkIn(this, office.id, System.currentTimeMillis());
+        } else if (action == TransitionDebouncer.Action.CHECK_OUT) {
+            Log.d(TAG, "Departure from " + office.name + " confirmed");
+            AttendanceEvents.submit(this, AttendanceEngine.Event.exit(office.id, office.name, System.currentTimeMillis()));
+        }
+        long deadline = transitions.nextDeadline();
+        if (deadline > 0 && (isTracking || isWatching)) {
+            locationHandler.postDelayed(fenceDeadline, Math.max(0, deadline - System.currentTimeMillis()));
+        }
+    }
+
+    private Office loadActiveOffice() {
+        SharedPreferences fence = getSharedPreferences(GeofenceHelper.PREFS_NAME, MODE_PRIVATE);
+        return OfficeRegistry.getInstance(this).forRequestId(fence.getString("geofenceId", null));
+    }
+
+    private AdaptiveSamplingPolicy createSamplingPolicy(Office office) {
+        if (office != null) {
+            return new AdaptiveSamplingPolicy(office.latitude, office.longitude, office.radiusMeters, office.outline());
+        }
+        SharedPreferences fence = getSharedPreferences(GeofenceHelper.PREFS_NAME, MODE_PRIVATE);
+        return new AdaptiveSamplingPolicy(fence.getFloat("lat", 0), fence.getFloat("lng", 0), fence.getFloat("radius", 0));
+    }
+
+    // Re-requesting with the same callback replaces the previous request
+    private void requestLocationUpdates(AdaptiveSamplingPolicy.Mode mode) {
+        if (!isTracking && !isWatching) {
+            // A batch delivered after stopTracking() must not re-register updates
+            return;
+        }
+        if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        LocationRequest locationRequest = new LocationRequest.Builder(priorityFor(mode), mode.intervalMillis)
+                .setMinUpdateIntervalMillis(mode.fastestIntervalMillis)
+                .setMinUpdateDistanceMeters(mode.minDisplacementMeters)
+                .setMaxUpdateDelayMillis(mode.maxUpdateDelayMillis)
+                .build();
+        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, locationThread.getLooper());
+        Log.d(TAG, "Location updates requested: " + mode);
+    }
+
+    private static int priorityFor(AdaptiveSamplingPolicy.Mode mode) {
+        switch (mode) {
+            case LOW:
+                return Priority.PRIORITY_LOW_POWER;
+            case BALANCED:
+                return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            default:
+                return Priority.PRIORITY_HIGH_ACCURACY;
+        }
     }
 
     // New method to encapsulate stopping the service logic
     private void stopTracking() {
-        if (!isTracking) {
+        if (!isTracking && !isWatching) {
             Log.d(TAG, "Service is not tracking. Ignoring stop command.");
             return;
         }
+        boolean hadSession = isTracking;
         isTracking = false;
+        isWatching = false;
         Log.d(TAG, "Stopping location tracking...");
 
         // Stop location updates
@@ -117,38 +300,66 @@ public class LocationForegroundService extends Service {
             fusedLocationClient.removeLocationUpdates(locationCallback);
             Log.d(TAG, "Location updates removed");
         }
+        AdaptiveSamplingPolicy policy = samplingPolicy;
+        if (policy != null) {
+            locationHandler.post(() -> Log.i(TAG, "Sampling duty cycle: "
+                    + policy.describeDutyCycle(System.currentTimeMillis())));
+        }
+
+        OfficeWifiMonitor.getInstance(this).removeListener(wifiListener);
+        locationHandler.removeCallbacks(watchTimeout);
+        locationHandler.removeCallbacks(fenceDeadline);
 
-        wifiCheckHandler.removeCallbacksAndMessages(null);
+        if (hadSession) {
+            // After any batch still queued on the location thread
+            locationHandler.post(breadcrumbBuffer::closeSession);
+        }
 
         stopForeground(true);
 
         stopSelf();
     }
 
-    private void startPeriodicWifiChecks() {
-        wifiCheckHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                if (!WifiValidator.isConnectedToOfficeWifi(LocationForegroundService.this)) {
-                    NotificationHelper.sendNotification(LocationForegroundService.this,
-                            "Session Paused",
-                            "Reconnect to office WiFi to continue tracking");
-                }
-                // Continue checking only if still tracking
-                if (isTracking) {
-                    wifiCheckHandler.postDelayed(this, WIFI_CHECK_INTERVAL);
-                }
+    // Warns once when a session starts off office WiFi, then again on each disconnect; the
+    // monitor reports those as they happen, so nothing polls
+    private void startWifiWatch() {
+        OfficeWifiMonitor monitor = OfficeWifiMonitor.getInstance(this);
+        monitor.addListener(wifiListener);
+        locationHandler.post(() -> {
+            onSessionWifi = isOnSessionWifi(true);
+            if (isTracking && !onSessionWifi) {
+                notifyWifiLost();
             }
         });
     }
 
+    // On an access point of the session's office, or of any office if it is not known yet;
+    // verify falls back to a direct check while the monitor has no answer
+    private boolean isOnSessionWifi(boolean verify) {
+        OfficeWifiMonitor monitor = OfficeWifiMonitor.getInstance(this);
+        Office office = fenceOffice;
+        if (office == null) {
+            return verify ? monitor.verify() : monitor.isOnOfficeWifi();
+        }
+        return verify ? monitor.verify(office.id) : monitor.isOnOfficeWifi(office.id);
+    }
+
+    private void notifyWifiLost() {
+        NotificationHelper.sendNotification(this,
+                "Session Paused",
+                "Reconnect to office WiFi to continue tracking");
+    }
+
     @Override
     public void onDestroy() {
         Log.d(TAG, "Service onDestroy called");
         // Ensure cleanup is done if the service is destroyed by the system
-        if (isTracking) {
+        if (isTracking || isWatching) {
             stopTracking();
         }
+        // Write whatever is still buffered; quitSafely lets a batch already queued finish first
+        locationThread.quitSafely();
+        breadcrumbBuffer.flush();
         super.onDestroy();
     }
 
@@ -2,11 +2,7 @@ package com.example.geotracker;
 
 import android.Manifest;
 import android.app.AlertDialog;
-import android.app.PendingIntent;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
@@ -14,6 +10,7 @@ import android.graphics.drawable.Drawable;
 import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Looper;
 import android.util.Log;
 import android.view.animation.Animation;
 import android.widget.Button;
@@ -27,17 +24,15 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofencingClient;
-import com.google.android.gms.location.GeofencingRequest;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
@@ -48,22 +43,14 @@ import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Polygon;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
-    private static final String GEOFENCE_ID = "MY_GEOFENCE";
-    private static final double GEOFENCE_LAT = 28.720126;
-    private static final double GEOFENCE_LON = 77.0822006;
-    private static final float GEOFENCE_RADIUS = 150;
+    private static final int MAP_OFFICE_COUNT = 20;
     private static final int REQUEST_FOREGROUND_LOCATION = 100;
     private static final int REQUEST_BACKGROUND_LOCATION = 101;
 
@@ -73,20 +60,19 @@ public class MainActivity extends AppCompatActivity {
     private LocationCallback locationCallback;
 
     private GeofencingClient geofencingClient;
-    private PendingIntent geofencePendingIntent;
 
     private MapView mapView;
     private Marker userMarker;
-    private Polygon geofenceCircle;
+    private final List<Polygon> officeCircles = new ArrayList<>();
 
     private TextView statusTextView;
     private TextView checkInTimeTextView;
     private TextView checkOutTimeTextView;
     private TextView lastUpdateTextView;
-    private BroadcastReceiver geofenceUpdateReceiver;
-    private boolean isReceiverRegistered = false;
-
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    private DashboardViewModel dashboardViewModel;
+    // Called on the ConnectivityManager thread
+    private final OfficeWifiPresence.Listener wifiListener = () ->
+            runOnUiThread(() -> renderDashboard(dashboardViewModel.getState().getValue()));
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -126,20 +112,26 @@ public class MainActivity extends AppCompatActivity {
         ImageButton syncButton = findViewById(R.id.syncButton);
         syncButton.setOnClickListener(v -> {
             v.animate().rotationBy(360).setDuration(1000).start();
-            OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-            WorkManager.getInstance(MainActivity.this).enqueue(syncWorkRequest);
+            SyncScheduler.requestSync(MainActivity.this);
             Toast.makeText(this, "Syncing data in background...", Toast.LENGTH_SHORT).show();
         });
+        syncButton.setOnLongClickListener(v -> {
+            startActivity(new Intent(MainActivity.this, SyncDebugActivity.class));
+            return true;
+        });
 
         mapView = findViewById(R.id.mapView);
         mapView.setTileSource(TileSourceFactory.MAPNIK);
         mapView.setMultiTouchControls(true);
         mapView.getController().setZoom(18.0);
-        mapView.getController().setCenter(new GeoPoint(GEOFENCE_LAT, GEOFENCE_LON));
+        mapView.getController().setCenter(new GeoPoint(AppDatabase.HEADQUARTERS_LAT, AppDatabase.HEADQUARTERS_LON));
 
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         geofencingClient = LocationServices.getGeofencingClient(this);
 
+        dashboardViewModel = new ViewModelProvider(this).get(DashboardViewModel.class);
+        dashboardViewModel.getState().observe(this, this::renderDashboard);
+
         createLocationRequest();
         createLocationCallback();
         checkPermissionsAndStart();
@@ -163,7 +155,7 @@ public class MainActivity extends AppCompatActivity {
         startService(stopServiceIntent);
         Log.d(TAG, "Sent stop command to LocationForegroundService.");
 
-        geofencingClient.removeGeofences(getGeofencePendingIntent())
+        geofencingClient.removeGeofences(GeofenceHelper.getPendingIntent(this))
                 .addOnSuccessListener(aVoid -> Log.d(TAG, "Geofences removed successfully."))
                 .addOnFailureListener(e -> Log.e(TAG, "Failed to remove geofences.", e));
 
@@ -171,6 +163,7 @@ public class MainActivity extends AppCompatActivity {
         userPrefs.edit().clear().apply();
         SharedPreferences geofencePrefs = getSharedPreferences("SavedGeofences", MODE_PRIVATE);
         geofencePrefs.edit().clear().apply();
+        TransitionStateStore.getInstance(this).reset();
         Log.d(TAG, "Cleared user and geofence preferences.");
 
         FirebaseAuth.getInstance().signOut();
@@ -191,155 +184,120 @@ public class MainActivity extends AppCompatActivity {
                 @Override public void onAnimationStart(Animation animation) { v.setEnabled(false); }
                 @Override public void onAnimationEnd(Animation animation) {
                     v.setEnabled(true);
-                    updateUI();
+                    renderDashboard(dashboardViewModel.getState().getValue());
                 }
                 @Override public void onAnimationRepeat(Animation animation) {}
             });
         });
     }
 
-    private PendingIntent getGeofencePendingIntent() {
-        if (geofencePendingIntent != null) {
-            return geofencePendingIntent;
-        }
-        Intent intent = new Intent(this, GeofenceBroadcastReceiver.class);
-        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            flags |= PendingIntent.FLAG_MUTABLE;
-        }
-        geofencePendingIntent = PendingIntent.getBroadcast(this, 0, intent, flags);
-        return geofencePendingIntent;
-    }
-
-    private void addGeofence() {
-        Geofence geofence = new Geofence.Builder()
-                .setRequestId(GEOFENCE_ID)
-                .setCircularRegion(GEOFENCE_LAT, GEOFENCE_LON, GEOFENCE_RADIUS)
-                .setExpirationDuration(Geofence.NEVER_EXPIRE)
-                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
-                .build();
-
-        GeofencingRequest request = new GeofencingRequest.Builder()
-                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
-                .addGeofence(geofence)
-                .build();
-
-        if (GeofenceHelper.isGeofenceAlreadyAdded(this)) {
-            Log.d(TAG, "Geofence already exists, skipping add.");
-            return;
-        }
-
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            geofencingClient.addGeofences(request, getGeofencePendingIntent())
-                    .addOnSuccessListener(aVoid -> {
-                        GeofenceHelper.saveGeofenceToPrefs(this, GEOFENCE_ID, (float) GEOFENCE_LAT, (float) GEOFENCE_LON, GEOFENCE_RADIUS);
-                        Log.d(TAG, "Geofence added successfully.");
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Geofence addition failed", e);
-                        Toast.makeText(this, "Geofence setup failed", Toast.LENGTH_SHORT).show();
-                    });
-        }
-    }
-
     private void initMapOverlay() {
         mapView.getOverlays().clear();
 
-        geofenceCircle = new Polygon();
-        geofenceCircle.setPoints(Polygon.pointsAsCircle(new GeoPoint(GEOFENCE_LAT, GEOFENCE_LON), GEOFENCE_RADIUS));
-        geofenceCircle.setFillColor(0x44FF0000);
-        geofenceCircle.setStrokeColor(0xFFFF0000);
-        geofenceCircle.setStrokeWidth(2f);
-        mapView.getOverlays().add(geofenceCircle);
-
-        Marker centerMarker = new Marker(mapView);
-        centerMarker.setPosition(new GeoPoint(GEOFENCE_LAT, GEOFENCE_LON));
-        centerMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-        centerMarker.setTitle("Geofence Center");
-        mapView.getOverlays().add(centerMarker);
-
         userMarker = new Marker(mapView);
         userMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
         userMarker.setTitle("Your Location");
         mapView.getOverlays().add(userMarker);
 
         mapView.invalidate();
+        drawNearbyOffices(AppDatabase.HEADQUARTERS_LAT, AppDatabase.HEADQUARTERS_LON);
     }
 
-    private void registerGeofenceUpdateReceiver() {
-        if (!isReceiverRegistered) {
-            geofenceUpdateReceiver = new BroadcastReceiver() {
-                @Override
-                public void onReceive(Context context, Intent intent) {
-                    updateUI();
+    // Office outlines (or circles) near the point, drawn under the user marker
+    private void drawNearbyOffices(double latitude, double longitude) {
+        AppExecutors.getInstance().io().execute(() -> {
+            List<Office> offices = OfficeRegistry.getInstance(this).nearest(latitude, longitude, MAP_OFFICE_COUNT);
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                for (Polygon circle : officeCircles) {
+                    mapView.getOverlays().remove(circle);
                 }
-            };
-            IntentFilter filter = new IntentFilter("com.example.geotracker.UPDATE_UI");
-            registerReceiver(geofenceUpdateReceiver, filter);
-            isReceiverRegistered = true;
+                officeCircles.clear();
+                for (Office office : offices) {
+                    Polygon circle = new Polygon();
+                    OfficeFootprint outline = office.outline();
+                    if (outline != null) {
+                        circle.setPoints(ringPoints(outline, 0));
+                        List<List<GeoPoint>> holes = new ArrayList<>();
+                        for (int ring = 1; ring < outline.ringCount(); ring++) {
+                            holes.add(ringPoints(outline, ring));
+                        }
+                        circle.setHoles(holes);
+                    } else {
+                        circle.setPoints(Polygon.pointsAsCircle(new GeoPoint(office.latitude, office.longitude), office.radiusMeters));
+                    }
+                    circle.setFillColor(0x44FF0000);
+                    circle.setStrokeColor(0xFFFF0000);
+                    circle.setStrokeWidth(2f);
+                    circle.setTitle(office.name);
+                    mapView.getOverlays().add(0, circle);
+                    officeCircles.add(circle);
+                }
+                mapView.invalidate();
+            });
+        });
+    }
+
+    private static List<GeoPoint> ringPoints(OfficeFootprint outline, int ring) {
+        List<GeoPoint> points = new ArrayList<>(outline.ringSize(ring) + 1);
+        for (int i = 0; i < outline.ringSize(ring); i++) {
+            points.add(new GeoPoint(outline.latitude(ring, i), outline.longitude(ring, i)));
         }
+        // Close the ring
+        points.add(points.get(0));
+        return points;
     }
 
-    private void updateUI() {
-        statusTextView.setText("Status: Refreshing...");
-        statusTextView.setTextColor(Color.GRAY);
-        statusTextView.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
+    // Re-rendering is cheap: the records come from the observed state, WiFi from the monitor's cache
+    private void renderDashboard(DashboardState state) {
+        if (state == null) {
+            statusTextView.setText("Status: Refreshing...");
+            statusTextView.setTextColor(Color.GRAY);
+            statusTextView.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
+            return;
+        }
 
-        String lastUpdateTime = new SimpleDateFormat("HH:mm:ss", Locale.getDefault()).format(new Date());
+        String lastUpdateTime = TimeFormats.clock(System.currentTimeMillis());
         lastUpdateTextView.setText(String.format("Last update: %s", lastUpdateTime));
 
-        executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(MainActivity.this);
-            AttendanceDao dao = db.attendanceDao();
-            AttendanceRecord activeRecord = dao.getActiveRecord();
-            List<AttendanceRecord> completedRecords = dao.getCompletedRecords();
-            AttendanceRecord lastRecord = completedRecords.isEmpty() ? null : completedRecords.get(0);
-
-            runOnUiThread(() -> {
-                try {
-                    if (activeRecord != null) {
-                        checkInTimeTextView.setText(String.format("Check-in: %s", activeRecord.checkInTime));
-                        checkOutTimeTextView.setText("Check-out: -");
-                        boolean isWifiValid = WifiValidator.isConnectedToOfficeWifi(MainActivity.this);
-                        if (isWifiValid) {
-                            statusTextView.setText("In office (Verified)");
-                            statusTextView.setTextColor(Color.GREEN);
-                            setStatusIcon(R.drawable.ic_verified);
-                        } else {
-                            statusTextView.setText("In office (Unverified)");
-                            statusTextView.setTextColor(ContextCompat.getColor(MainActivity.this, R.color.unverified_orange));
-                            setStatusIcon(R.drawable.ic_warning);
-                        }
-                    } else if (lastRecord != null && lastRecord.checkOutTime != null) {
-                        checkInTimeTextView.setText(String.format("Check-in: %s", lastRecord.checkInTime));
-                        checkOutTimeTextView.setText(String.format("Check-out: %s", lastRecord.checkOutTime));
-                        try {
-                            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-                            Date checkInDate = format.parse(lastRecord.checkInTime);
-                            Date checkOutDate = format.parse(lastRecord.checkOutTime);
-                            long duration = checkOutDate.getTime() - checkInDate.getTime();
-                            String durationText = String.format(Locale.getDefault(), "%dh %02dm", TimeUnit.MILLISECONDS.toHours(duration), TimeUnit.MILLISECONDS.toMinutes(duration) % 60);
-                            statusTextView.setText(String.format("Last session: %s", durationText));
-                            statusTextView.setTextColor(Color.BLUE);
-                            setStatusIcon(R.drawable.ic_history);
-                        } catch (ParseException e) {
-                            statusTextView.setText("Session recorded");
-                            statusTextView.setTextColor(Color.BLUE);
-                        }
-                    } else {
-                        checkInTimeTextView.setText("Check-in: N/A");
-                        checkOutTimeTextView.setText("Check-out: N/A");
-                        statusTextView.setText("Outside office area");
-                        statusTextView.setTextColor(Color.RED);
-                        setStatusIcon(R.drawable.ic_location_off);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "UI update failed", e);
-                    statusTextView.setText("Status update failed");
-                    statusTextView.setTextColor(Color.RED);
+        AttendanceRecord activeRecord = state.activeRecord;
+        AttendanceRecord lastRecord = state.lastCompletedRecord;
+        try {
+            if (activeRecord != null) {
+                checkInTimeTextView.setText(String.format("Check-in: %s", TimeFormats.timestamp(activeRecord.checkInMillis)));
+                checkOutTimeTextView.setText("Check-out: -");
+                // Only the session's own office's WiFi verifies it; older records have no office id
+                OfficeWifiMonitor wifiMonitor = OfficeWifiMonitor.getInstance(MainActivity.this);
+                boolean isWifiValid = activeRecord.officeId != null
+                        ? wifiMonitor.isOnOfficeWifi(activeRecord.officeId)
+                        : wifiMonitor.isOnOfficeWifi();
+                if (isWifiValid) {
+                    statusTextView.setText("In office (Verified)");
+                    statusTextView.setTextColor(Color.GREEN);
+                    setStatusIcon(R.drawable.ic_verified);
+                } else {
+                    statusTextView.setText("In office (Unverified)");
+                    statusTextView.setTextColor(ContextCompat.getColor(MainActivity.this, R.color.unverified_orange));
+                    setStatusIcon(R.drawable.ic_warning);
                 }
-            });
-        });
+            } else if (lastRecord != null && lastRecord.checkOutMillis != null) {
+                checkInTimeTextView.setText(String.format("Check-in: %s", TimeFormats.timestamp(lastRecord.checkInMillis)));
+                checkOutTimeTextView.setText(String.format("Check-out: %s", TimeFormats.timestamp(lastRecord.checkOutMillis)));
+                statusTextView.setText(String.format("Last session: %s", TimeFormats.duration(lastRecord.durationMillis)));
+                statusTextView.setTextColor(Color.BLUE);
+                setStatusIcon(R.drawable.ic_history);
+            } else {
+                checkInTimeTextView.setText("Check-in: N/A");
+                checkOutTimeTextView.setText("Check-out: N/A");
+                statusTextView.setText("Outside office area");
+                statusTextView.setTextColor(Color.RED);
+                setStatusIcon(R.drawable.ic_location_off);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "UI update failed", e);
+            statusTextView.setText("Status update failed");
+            statusTextView.setTextColor(Color.RED);
+        }
     }
 
     private void setStatusIcon(@DrawableRes int iconRes) {
@@ -348,18 +306,19 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void createLocationRequest() {
-        locationRequest = LocationRequest.create();
-        locationRequest.setInterval(10000);
-        locationRequest.setFastestInterval(5000);
-        locationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
+        locationRequest = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, 10000)
+                .setMinUpdateIntervalMillis(5000)
+                .build();
     }
 
+    // Only moves the marker, so it stays on the main thread; a batch costs one redraw
     private void createLocationCallback() {
         locationCallback = new LocationCallback() {
             @Override
             public void onLocationResult(@NonNull LocationResult locationResult) {
-                for (Location location : locationResult.getLocations()) {
-                    updateUserLocation(location);
+                Location last = locationResult.getLastLocation();
+                if (last != null) {
+                    updateUserLocation(last);
                 }
             }
         };
@@ -392,19 +351,16 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void startAppFeatures() {
-        if (!GeofenceHelper.isGeofenceAlreadyAdded(this)) {
-            addGeofence();
-        } else {
-            new GeofenceHelper(this).reRegisterGeofences();
-        }
+        AppExecutors.getInstance().io().execute(() -> new GeofenceHelper(this).reRegisterGeofences());
+        // SSIDs were redacted until location permission was granted
+        AppExecutors.getInstance().io().execute(() -> OfficeWifiMonitor.getInstance(this).refresh());
         initMapOverlay();
         startLocationUpdates();
-        updateUI();
     }
 
     private void startLocationUpdates() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, null);
+            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
         }
     }
 
@@ -417,25 +373,18 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        registerGeofenceUpdateReceiver();
         startLocationUpdates();
-        updateUI();
-        OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class).build();
-        WorkManager.getInstance(this).enqueue(syncWorkRequest);
+        // Records only change through the observed state; WiFi changes arrive through the listener
+        OfficeWifiMonitor.getInstance(this).addListener(wifiListener);
+        renderDashboard(dashboardViewModel.getState().getValue());
+        SyncScheduler.requestSync(this);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        if (isReceiverRegistered) {
-            try {
-                unregisterReceiver(geofenceUpdateReceiver);
-                isReceiverRegistered = false;
-            } catch (IllegalArgumentException e) {
-                Log.w(TAG, "Receiver not registered");
-            }
-        }
         stopLocationUpdates();
+        OfficeWifiMonitor.getInstance(this).removeListener(wifiListener);
     }
 
     @Override
@@ -459,18 +408,17 @@ public class MainActivity extends AppCompatActivity {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
             fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
                 if (location != null) {
-                    float[] results = new float[1];
-                    Location.distanceBetween(location.getLatitude(), location.getLongitude(), GEOFENCE_LAT, GEOFENCE_LON, results);
-                    if (results[0] <= GEOFENCE_RADIUS) {
-                        executor.execute(() -> {
-                            AttendanceRecord activeRecord = AppDatabase.getInstance(MainActivity.this).attendanceDao().getActiveRecord();
-                            if (activeRecord == null) {
-                                Intent intent = new Intent(MainActivity.this, GeofenceBroadcastReceiver.class);
-                                intent.setAction("MANUAL_CHECK_IN");
-                                sendBroadcast(intent);
-                            }
-                        });
-                    }
+                    drawNearbyOffices(location.getLatitude(), location.getLongitude());
+                    AppExecutors.getInstance().io().execute(() -> {
+                        Office office = OfficeRegistry.getInstance(MainActivity.this)
+                                .findContaining(location.getLatitude(), location.getLongitude());
+                        if (office != null && !SessionRepository.getInstance(MainActivity.this).hasActiveSession()) {
+                            Intent intent = new Intent(MainActivity.this, GeofenceBroadcastReceiver.class);
+                            intent.setAction("MANUAL_CHECK_IN");
+                            intent.putExtra(GeofenceBroadcastReceiver.EXTRA_OFFICE_ID, office.id);
+                            sendBroadcast(intent);
+                        }
+                    });
                 }
             });
         }
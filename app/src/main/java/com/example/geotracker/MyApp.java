@@ -12,6 +12,8 @@ public class MyApp extends Application {
         super.onCreate();
         installTlsPatch();
         FirebaseApp.initializeApp(this);
+        OfficeWifiMonitor.getInstance(this).start();
+        AppExecutors.getInstance().diskWrite().execute(() -> AttendanceRollups.rebuildIfNeeded(this));
     }
 
     private void installTlsPatch() {
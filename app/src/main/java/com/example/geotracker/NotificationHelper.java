@@ -14,15 +14,11 @@ import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-
 public class NotificationHelper {
     public static final String CHANNEL_ID = "geofence_channel";
     public static final String CHANNEL_ID_HIGH = "geofence_high_priority";
     private static final int NOTIFICATION_ID = 1001;
     private static boolean channelsCreated = false;
-    private static final Executor executor = Executors.newSingleThreadExecutor();
 
     public static void createNotificationChannels(Context context) {
         if (channelsCreated || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
@@ -121,13 +117,11 @@ public class NotificationHelper {
     }
 
     private static void updateNotificationWithDatabaseInfo(Context context) {
-        executor.execute(() -> {
-            AppDatabase db = AppDatabase.getInstance(context);
-            AttendanceDao dao = db.attendanceDao();
-            AttendanceRecord activeRecord = dao.getActiveRecord();
+        AppExecutors.getInstance().io().execute(() -> {
+            AttendanceRecord activeRecord = SessionRepository.getInstance(context).getActiveSession();
 
             String checkInTime = (activeRecord != null) ?
-                    "Tracking since: " + activeRecord.checkInTime :
+                    "Tracking since: " + TimeFormats.timestamp(activeRecord.checkInMillis) :
                     "Active session";
 
             // Create updated notification
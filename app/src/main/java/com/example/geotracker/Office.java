@@ -0,0 +1,79 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "offices",
+        indices = {
+                // getInCells(): cellKey IN (...)
+                @Index("cellKey")
+        })
+public class Office {
+    // Slack around a footprint's enclosing circle, so a fix just outside the outline with a
+    // poor accuracy still wakes the device
+    static final float FOOTPRINT_TRIGGER_MARGIN_METERS = 50;
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    @NonNull
+    public String name;
+    public double latitude;
+    public double longitude;
+    // Geofence circle. For an office with a footprint it encloses the outline and is only the
+    // coarse wake-up trigger; attendance follows the outline itself.
+    public float radiusMeters;
+    // OfficeGrid cell of the center; kept in sync with latitude/longitude by the constructor
+    public long cellKey;
+    // OfficeFootprint.encode() outline, or null for a plain circle
+    @Nullable
+    public String footprint;
+
+    @Ignore
+    private volatile OfficeFootprint parsedFootprint;
+
+    public Office(@NonNull String name, double latitude, double longitude, float radiusMeters) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radiusMeters = radiusMeters;
+        this.cellKey = OfficeGrid.cellKey(latitude, longitude);
+    }
+
+    public static Office withFootprint(@NonNull String name, OfficeFootprint outline) {
+        Office office = new Office(name, outline.centerLatitude(), outline.centerLongitude(),
+                (float) outline.enclosingRadiusMeters() + FOOTPRINT_TRIGGER_MARGIN_METERS);
+        office.footprint = outline.encode();
+        return office;
+    }
+
+    // Parsed footprint, or null for a circular office. A malformed column counts as a circle.
+    @Nullable
+    public OfficeFootprint outline() {
+        if (footprint == null) {
+            return null;
+        }
+        OfficeFootprint parsed = parsedFootprint;
+        if (parsed == null) {
+            try {
+                parsed = OfficeFootprint.parse(footprint);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            parsedFootprint = parsed;
+        }
+        return parsed;
+    }
+
+    public boolean contains(double lat, double lon) {
+        OfficeFootprint outline = outline();
+        if (outline != null) {
+            return outline.contains(lat, lon);
+        }
+        return GeoMath.distanceMeters(latitude, longitude, lat, lon) <= radiusMeters;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.geotracker;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// One Wi-Fi access point that counts as being at an office. Sites list every access point of
+// every floor; an access point belongs to one office.
+@Entity(tableName = "office_access_points",
+        foreignKeys = @ForeignKey(entity = Office.class,
+                parentColumns = "id",
+                childColumns = "officeId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("officeId")})
+public class OfficeAccessPoint {
+    // BssidIndex.parse() of the access point's MAC address
+    @PrimaryKey
+    public long bssid;
+
+    public int officeId;
+
+    public OfficeAccessPoint(long bssid, int officeId) {
+        this.bssid = bssid;
+        this.officeId = officeId;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.geotracker;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface OfficeDao {
+    @Insert
+    long insert(Office office);
+
+    @Insert
+    void insertAll(List<Office> offices);
+
+    @Query("SELECT * FROM offices WHERE id = :id")
+    Office getById(int id);
+
+    // Candidates for a nearest-offices search; OfficeGrid picks which cells to ask for
+    @Query("SELECT * FROM offices WHERE cellKey IN (:cellKeys)")
+    List<Office> getInCells(List<Long> cellKeys);
+
+    @Query("SELECT COUNT(*) FROM offices")
+    int count();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAccessPoints(List<OfficeAccessPoint> accessPoints);
+
+    // Small enough to hold in memory whole; OfficeRegistry builds a BssidIndex from it
+    @Query("SELECT * FROM office_access_points")
+    List<OfficeAccessPoint> getAccessPoints();
+}
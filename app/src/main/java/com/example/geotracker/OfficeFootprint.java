@@ -0,0 +1,307 @@
+package com.example.geotracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// An office outline: one or more rings of lat/lon vertices under the even-odd rule, so a second
+// ring inside the first is a courtyard. Edges are bucketed into latitude bands up front, so a
+// containment test only crosses the few edges in the fix's band instead of every edge.
+// Footprints are campus-sized; they must not cross the antimeridian.
+//
+// Immutable and thread-safe once built.
+public final class OfficeFootprint {
+
+    public enum Verdict {
+        INSIDE,
+        OUTSIDE,
+        // The fix's accuracy circle straddles the outline; wait for a better one
+        UNCERTAIN
+    }
+
+    private static final double METERS_PER_DEGREE = GeoMath.EARTH_RADIUS_METERS * Math.PI / 180;
+    private static final int MAX_BANDS = 64;
+
+    // Vertices per ring, flattened: ringStart[r] .. ringStart[r + 1] - 1
+    private final double[] lats;
+    private final double[] lons;
+    private final int[] ringStart;
+
+    // Edge e runs from (edgeLat[2e], edgeLon[2e]) to (edgeLat[2e + 1], edgeLon[2e + 1])
+    private final double[] edgeLat;
+    private final double[] edgeLon;
+
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private final double bandHeight;
+    // Edges whose latitude span overlaps each band
+    private final int[][] bandEdges;
+
+    private OfficeFootprint(List<double[]> rings) {
+        int vertexCount = 0;
+        for (double[] ring : rings) {
+            vertexCount += ring.length / 2;
+        }
+        lats = new double[vertexCount];
+        lons = new double[vertexCount];
+        ringStart = new int[rings.size() + 1];
+        edgeLat = new double[vertexCount * 2];
+        edgeLon = new double[vertexCount * 2];
+
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        int v = 0;
+        for (int r = 0; r < rings.size(); r++) {
+            double[] ring = rings.get(r);
+            ringStart[r] = v;
+            int n = ring.length / 2;
+            for (int i = 0; i < n; i++) {
+                double lat = ring[2 * i];
+                double lon = ring[2 * i + 1];
+                lats[v + i] = lat;
+                lons[v + i] = lon;
+                int next = (i + 1) % n;
+                edgeLat[2 * (v + i)] = lat;
+                edgeLon[2 * (v + i)] = lon;
+                edgeLat[2 * (v + i) + 1] = ring[2 * next];
+                edgeLon[2 * (v + i) + 1] = ring[2 * next + 1];
+                south = Math.min(south, lat);
+                north = Math.max(north, lat);
+                west = Math.min(west, lon);
+                east = Math.max(east, lon);
+            }
+            v += n;
+        }
+        ringStart[rings.size()] = v;
+        minLat = south;
+        maxLat = north;
+        minLon = west;
+        maxLon = east;
+
+        // About two edges per band keeps each containment test to a handful of crossings
+        int bands = Math.max(1, Math.min(MAX_BANDS, vertexCount / 2));
+        bandHeight = Math.max((maxLat - minLat) / bands, 1e-12);
+        int[] counts = new int[bands];
+        for (int e = 0; e < vertexCount; e++) {
+            int from = band(Math.min(edgeLat[2 * e], edgeLat[2 * e + 1]), bands);
+            int to = band(Math.max(edgeLat[2 * e], edgeLat[2 * e + 1]), bands);
+            for (int b = from; b <= to; b++) {
+                counts[b]++;
+            }
+        }
+        bandEdges = new int[bands][];
+        for (int b = 0; b < bands; b++) {
+            bandEdges[b] = new int[counts[b]];
+            counts[b] = 0;
+        }
+        for (int e = 0; e < vertexCount; e++) {
+            int from = band(Math.min(edgeLat[2 * e], edgeLat[2 * e + 1]), bands);
+            int to = band(Math.max(edgeLat[2 * e], edgeLat[2 * e + 1]), bands);
+            for (int b = from; b <= to; b++) {
+                bandEdges[b][counts[b]++] = e;
+            }
+        }
+    }
+
+    // Rings as flat {lat0, lon0, lat1, lon1, ...} arrays; each needs at least three vertices and
+    // is closed implicitly
+    public static OfficeFootprint of(List<double[]> rings) {
+        if (rings.isEmpty()) {
+            throw new IllegalArgumentException("Footprint has no rings");
+        }
+        for (double[] ring : rings) {
+            if (ring.length % 2 != 0 || ring.length < 6) {
+                throw new IllegalArgumentException("Ring needs at least three lat,lon vertices");
+            }
+            for (int i = 0; i < ring.length; i += 2) {
+                if (Double.isNaN(ring[i]) || Math.abs(ring[i]) > 90
+                        || Double.isNaN(ring[i + 1]) || Math.abs(ring[i + 1]) > 180) {
+                    throw new IllegalArgumentException("Vertex out of range: " + ring[i] + "," + ring[i + 1]);
+                }
+            }
+        }
+        return new OfficeFootprint(rings);
+    }
+
+    // "lat,lon lat,lon ...", rings separated by ';' (the offices.footprint column)
+    public static OfficeFootprint parse(String encoded) {
+        List<double[]> rings = new ArrayList<>();
+        for (String ringText : encoded.trim().split(";")) {
+            String[] points = ringText.trim().split("\\s+");
+            double[] ring = new double[points.length * 2];
+            for (int i = 0; i < points.length; i++) {
+                int comma = points[i].indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalArgumentException("Bad vertex: " + points[i]);
+                }
+                ring[2 * i] = Double.parseDouble(points[i].substring(0, comma));
+                ring[2 * i + 1] = Double.parseDouble(points[i].substring(comma + 1));
+            }
+            rings.add(ring);
+        }
+        return of(rings);
+    }
+
+    public String encode() {
+        StringBuilder out = new StringBuilder();
+        for (int r = 0; r < ringCount(); r++) {
+            if (r > 0) out.append(';');
+            for (int i = ringStart[r]; i < ringStart[r + 1]; i++) {
+                if (i > ringStart[r]) out.append(' ');
+                out.append(lats[i]).append(',').append(lons[i]);
+            }
+        }
+        return out.toString();
+    }
+
+    public int ringCount() {
+        return ringStart.length - 1;
+    }
+
+    public int ringSize(int ring) {
+        return ringStart[ring + 1] - ringStart[ring];
+    }
+
+    public double latitude(int ring, int vertex) {
+        return lats[ringStart[ring] + vertex];
+    }
+
+    public double longitude(int ring, int vertex) {
+        return lons[ringStart[ring] + vertex];
+    }
+
+    public double centerLatitude() {
+        return (minLat + maxLat) / 2;
+    }
+
+    public double centerLongitude() {
+        return (minLon + maxLon) / 2;
+    }
+
+    // Radius of the smallest circle around the bounding-box center holding every vertex
+    public double enclosingRadiusMeters() {
+        double centerLat = centerLatitude();
+        double centerLon = centerLongitude();
+        double radius = 0;
+        for (int i = 0; i < lats.length; i++) {
+            radius = Math.max(radius, GeoMath.distanceMeters(centerLat, centerLon, lats[i], lons[i]));
+        }
+        return radius;
+    }
+
+    public boolean contains(double lat, double lon) {
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+            return false;
+        }
+        // Ray cast eastwards; only edges spanning this latitude can cross it, and they are all
+        // in this band
+        boolean inside = false;
+        for (int e : bandEdges[band(lat, bandEdges.length)]) {
+            double lat1 = edgeLat[2 * e];
+            double lat2 = edgeLat[2 * e + 1];
+            if ((lat1 > lat) != (lat2 > lat)) {
+                double lon1 = edgeLon[2 * e];
+                double lon2 = edgeLon[2 * e + 1];
+                double crossLon = lon1 + (lat - lat1) / (lat2 - lat1) * (lon2 - lon1);
+                if (crossLon > lon) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    // Distance from the point to the nearest edge, inside or out. Planar around the point, which
+    // at campus scale is off by centimeters.
+    public double distanceToBoundaryMeters(double lat, double lon) {
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+        int bands = bandEdges.length;
+        int start = band(lat, bands);
+        double best = Double.POSITIVE_INFINITY;
+        // Bands outward from the point's own; stop once a band is further away than the best edge
+        for (int d = 0; d < bands; d++) {
+            int south = start - d;
+            int north = start + d;
+            boolean searchSouth = south >= 0 && bandGapMeters(lat, south) <= best;
+            boolean searchNorth = d > 0 && north < bands && bandGapMeters(lat, north) <= best;
+            if (!searchSouth && !searchNorth) {
+                break;
+            }
+            if (searchSouth) {
+                best = nearestEdgeIn(south, lat, lon, metersPerDegreeLon, best);
+            }
+            if (searchNorth) {
+                best = nearestEdgeIn(north, lat, lon, metersPerDegreeLon, best);
+            }
+        }
+        return best;
+    }
+
+    private double nearestEdgeIn(int band, double lat, double lon, double metersPerDegreeLon, double best) {
+        for (int e : bandEdges[band]) {
+            best = Math.min(best, segmentDistance(lat, lon, e, metersPerDegreeLon));
+        }
+        return best;
+    }
+
+    // Whether any edge is within the given distance; only bands that close are searched, and
+    // the first hit ends the search
+    public boolean isNearBoundary(double lat, double lon, double meters) {
+        if (lat < minLat - meters / METERS_PER_DEGREE || lat > maxLat + meters / METERS_PER_DEGREE) {
+            return false;
+        }
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+        double reachDegrees = meters / METERS_PER_DEGREE;
+        int from = band(lat - reachDegrees, bandEdges.length);
+        int to = band(lat + reachDegrees, bandEdges.length);
+        for (int b = from; b <= to; b++) {
+            for (int e : bandEdges[b]) {
+                if (segmentDistance(lat, lon, e, metersPerDegreeLon) <= meters) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Contained fixes are INSIDE and others OUTSIDE, unless the outline is within the fix's
+    // accuracy, in which case either answer could be jitter
+    public Verdict classify(double lat, double lon, float accuracyMeters) {
+        if (accuracyMeters > 0 && isNearBoundary(lat, lon, accuracyMeters)) {
+            return Verdict.UNCERTAIN;
+        }
+        return contains(lat, lon) ? Verdict.INSIDE : Verdict.OUTSIDE;
+    }
+
+    int bandCount() {
+        return bandEdges.length;
+    }
+
+    private int band(double lat, int bands) {
+        int b = (int) ((lat - minLat) / bandHeight);
+        return Math.max(0, Math.min(bands - 1, b));
+    }
+
+    private double bandGapMeters(double lat, int b) {
+        double bandSouth = minLat + b * bandHeight;
+        double bandNorth = b == bandEdges.length - 1 ? maxLat : bandSouth + bandHeight;
+        if (lat < bandSouth) return (bandSouth - lat) * METERS_PER_DEGREE;
+        if (lat > bandNorth) return (lat - bandNorth) * METERS_PER_DEGREE;
+        return 0;
+    }
+
+    private double segmentDistance(double lat, double lon, int e, double metersPerDegreeLon) {
+        double ax = (edgeLon[2 * e] - lon) * metersPerDegreeLon;
+        double ay = (edgeLat[2 * e] - lat) * METERS_PER_DEGREE;
+        double bx = (edgeLon[2 * e + 1] - lon) * metersPerDegreeLon;
+        double by = (edgeLat[2 * e + 1] - lat) * METERS_PER_DEGREE;
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSquared));
+        double px = ax + t * dx;
+        double py = ay + t * dy;
+        return Math.sqrt(px * px + py * py);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.geotracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed lat/lon grid over office centers. A nearest-N search asks for square rings of cells
+// around the query point, nearest first, and stops once no unvisited cell can hold anything
+// closer than the N-th office found so far.
+public final class OfficeGrid {
+    // ~5.5 km north-south; a metro area is a handful of cells
+    static final double CELL_DEGREES = 0.05;
+    private static final int ROWS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int COLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double METERS_PER_DEGREE = 111_195;
+
+    public interface CellSource {
+        // Offices whose cellKey is in cellKeys, in any order
+        List<Office> officesIn(List<Long> cellKeys);
+    }
+
+    private OfficeGrid() {
+    }
+
+    public static long cellKey(double latitude, double longitude) {
+        return cellKey(row(latitude), col(longitude));
+    }
+
+    static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    static int row(double latitude) {
+        return Math.min(ROWS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    static int col(double longitude) {
+        int col = (int) Math.floor((longitude + 180) / CELL_DEGREES);
+        return Math.floorMod(col, COLS);
+    }
+
+    // Up to n offices within maxDistanceMeters of the point, nearest center first
+    public static List<Office> nearest(CellSource source, double latitude, double longitude, int n,
+                                       double maxDistanceMeters) {
+        List<Office> found = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        if (n <= 0) {
+            return found;
+        }
+
+        int row = row(latitude);
+        int col = col(longitude);
+        // Narrowest cell side anywhere within reach, so ring r is at least (r - 1) * this far away
+        double reachDegrees = maxDistanceMeters / METERS_PER_DEGREE + CELL_DEGREES;
+        double cellWidth = CELL_DEGREES * METERS_PER_DEGREE
+                * Math.max(0.01, Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude) + reachDegrees))));
+        double cellSide = Math.min(CELL_DEGREES * METERS_PER_DEGREE, cellWidth);
+        int maxRing = (int) Math.ceil(maxDistanceMeters / cellSide) + 1;
+        // Past half the globe the rings would only revisit columns
+        maxRing = Math.min(maxRing, COLS / 2);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double ringMinDistance = (ring - 1) * cellSide;
+            if (ringMinDistance > maxDistanceMeters
+                    || (found.size() >= n && ringMinDistance > distances.get(n - 1))) {
+                break;
+            }
+            List<Long> keys = ringKeys(row, col, ring);
+            if (keys.isEmpty()) {
+                continue;
+            }
+            for (Office office : source.officesIn(keys)) {
+                double distance = GeoMath.distanceMeters(latitude, longitude, office.latitude, office.longitude);
+                if (distance > maxDistanceMeters) {
+                    continue;
+                }
+                int at = insertionPoint(distances, distance);
+                if (at >= n) {
+                    continue;
+                }
+                distances.add(at, distance);
+                found.add(at, office);
+                if (found.size() > n) {
+                    distances.remove(n);
+                    found.remove(n);
+                }
+            }
+        }
+        return found;
+    }
+
+    // Cells on the square ring at Chebyshev distance `ring` from (row, col)
+    static List<Long> ringKeys(int row, int col, int ring) {
+        List<Long> keys = new ArrayList<>(Math.max(1, ring * 8));
+        for (int dr = -ring; dr <= ring; dr++) {
+            int r = row + dr;
+            if (r < 0 || r >= ROWS) {
+                continue;
+            }
+            boolean edgeRow = dr == -ring || dr == ring;
+            int step = edgeRow ? 1 : 2 * ring;
+            for (int dc = -ring; dc <= ring; dc += Math.max(1, step)) {
+                keys.add(cellKey(r, Math.floorMod(col + dc, COLS)));
+            }
+        }
+        return keys;
+    }
+
+    private static int insertionPoint(List<Double> sorted, double value) {
+        int lo = 0;
+        int hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted.get(mid) <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide view of the offices table. Grid cells are read from Room the first time a search
+// touches them and then served from memory, as are offices looked up by id, so resolving the
+// office behind a geofence transition is a map lookup. Methods may hit the database on a cache
+// miss; do not call them on the main thread.
+public class OfficeRegistry {
+    private static final String REQUEST_ID_PREFIX = "office-";
+    // Offices further than this are never worth a geofence slot
+    static final double MAX_SEARCH_METERS = 100_000;
+    // Overlapping campuses: how many of the nearest centers to test for containment
+    private static final int CONTAINMENT_CANDIDATES = 5;
+
+    private static volatile OfficeRegistry INSTANCE;
+
+    private final OfficeDao dao;
+    private final Map<Long, List<Office>> cells = new ConcurrentHashMap<>();
+    private final Map<Integer, Office> byId = new ConcurrentHashMap<>();
+    private final OfficeGrid.CellSource cellSource = this::officesIn;
+    // Every office's access points; loaded on first use
+    private volatile BssidIndex accessPoints;
+
+    private OfficeRegistry(OfficeDao dao) {
+        this.dao = dao;
+    }
+
+    public static OfficeRegistry getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (OfficeRegistry.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OfficeRegistry(AppDatabase.getInstance(context).officeDao());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public static String requestIdFor(Office office) {
+        return requestIdFor(office.id);
+    }
+
+    public static String requestIdFor(int officeId) {
+        return REQUEST_ID_PREFIX + officeId;
+    }
+
+    public List<Office> nearest(double latitude, double longitude, int n) {
+        return OfficeGrid.nearest(cellSource, latitude, longitude, n, MAX_SEARCH_METERS);
+    }
+
+    // Office whose footprint (or circle) contains the point, nearest center first; null when outside all of them
+    public Office findContaining(double latitude, double longitude) {
+        for (Office office : nearest(latitude, longitude, CONTAINMENT_CANDIDATES)) {
+            if (office.contains(latitude, longitude)) {
+                return office;
+            }
+        }
+        return null;
+    }
+
+    // Office behind a geofence request id, or null for ids that are not offices (e.g. the re-rank fence)
+    public Office forRequestId(String requestId) {
+        if (requestId == null || !requestId.startsWith(REQUEST_ID_PREFIX)) {
+            return null;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(requestId.substring(REQUEST_ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Office office = byId.get(id);
+        if (office == null) {
+            office = dao.getById(id);
+            if (office != null) {
+                byId.put(id, office);
+            }
+        }
+        return office;
+    }
+
+    // Office the access point belongs to, or BssidIndex.NO_OFFICE; a probe of an in-memory
+    // table once loaded
+    public int officeForBssid(long bssid) {
+        BssidIndex index = accessPoints;
+        if (index == null) {
+            index = loadAccessPoints();
+        }
+        return index.officeFor(bssid);
+    }
+
+    private synchronized BssidIndex loadAccessPoints() {
+        if (accessPoints == null) {
+            List<OfficeAccessPoint> rows = dao.getAccessPoints();
+            BssidIndex index = new BssidIndex(rows.size());
+            for (OfficeAccessPoint row : rows) {
+                index.put(row.bssid, row.officeId);
+            }
+            accessPoints = index;
+        }
+        return accessPoints;
+    }
+
+    private List<Office> officesIn(List<Long> cellKeys) {
+        List<Office> result = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long key : cellKeys) {
+            List<Office> cached = cells.get(key);
+            if (cached != null) {
+                result.addAll(cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<Office>> loaded = new HashMap<>();
+        for (Long key : missing) {
+            loaded.put(key, new ArrayList<>());
+        }
+        for (Office office : dao.getInCells(missing)) {
+            List<Office> cell = loaded.get(office.cellKey);
+            if (cell != null) {
+                cell.add(office);
+            }
+            byId.put(office.id, office);
+            result.add(office);
+        }
+        for (Map.Entry<Long, List<Office>> entry : loaded.entrySet()) {
+            cells.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return result;
+    }
+}
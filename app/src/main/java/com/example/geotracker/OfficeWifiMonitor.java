@@ -0,0 +1,149 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+// Process-wide office Wi-Fi state, fed by a ConnectivityManager.NetworkCallback registered once
+// from MyApp. Connects, roams and disconnects are pushed to OfficeWifiPresence as they happen,
+// so readers get a cached answer and a lost connection is noticed within seconds, without any
+// polling. Listeners are called on the ConnectivityManager thread and should post their work.
+public class OfficeWifiMonitor {
+    private static final String TAG = "OfficeWifiMonitor";
+
+    private static volatile OfficeWifiMonitor INSTANCE;
+
+    private final Context context;
+    private final OfficeWifiPresence presence = new OfficeWifiPresence();
+    private ConnectivityManager.NetworkCallback callback;
+
+    private OfficeWifiMonitor(Context context) {
+        this.context = context;
+    }
+
+    public static OfficeWifiMonitor getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (OfficeWifiMonitor.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OfficeWifiMonitor(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Idempotent
+    public synchronized void start() {
+        if (callback != null) {
+            return;
+        }
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) {
+            Log.w(TAG, "No ConnectivityManager; falling back to direct checks");
+            return;
+        }
+        register(connectivity);
+        // With no Wi-Fi up no callback comes at all; one direct check makes the value known
+        AppExecutors.getInstance().io().execute(() -> presence.seed(WifiValidator.connectedOffice(context)));
+    }
+
+    private void register(ConnectivityManager connectivity) {
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                .build();
+        callback = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? new Callback(ConnectivityManager.NetworkCallback.FLAG_INCLUDE_LOCATION_INFO)
+                : new Callback();
+        connectivity.registerNetworkCallback(request, callback);
+    }
+
+    // Cached; never blocks, so it is safe on the main thread. False until the first answer.
+    public boolean isOnOfficeWifi() {
+        return presence.isOnOfficeWifi();
+    }
+
+    // As isOnOfficeWifi(), but only an access point listed for officeId counts
+    public boolean isOnOfficeWifi(int officeId) {
+        return presence.isOnOfficeWifi(officeId);
+    }
+
+    // For decisions that cannot take "not known yet" for an answer: the cached value once there
+    // is one, otherwise a direct check. Not on the main thread.
+    public boolean verify() {
+        ensureKnown();
+        return presence.isOnOfficeWifi();
+    }
+
+    // As verify(), but only an access point listed for officeId counts; what a check-in at that
+    // office needs
+    public boolean verify(int officeId) {
+        ensureKnown();
+        return presence.isOnOfficeWifi(officeId);
+    }
+
+    private void ensureKnown() {
+        if (!presence.isKnown()) {
+            presence.seed(WifiValidator.connectedOffice(context));
+        }
+    }
+
+    // Re-evaluates the current networks, e.g. once location permission is granted and SSIDs are
+    // no longer redacted: a fresh registration is called back for every current network. Not on
+    // the main thread.
+    public void refresh() {
+        synchronized (this) {
+            ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+            if (callback != null && connectivity != null) {
+                connectivity.unregisterNetworkCallback(callback);
+                register(connectivity);
+            }
+        }
+        presence.seed(WifiValidator.connectedOffice(context));
+    }
+
+    public void addListener(OfficeWifiPresence.Listener listener) {
+        presence.addListener(listener);
+    }
+
+    public void removeListener(OfficeWifiPresence.Listener listener) {
+        presence.removeListener(listener);
+    }
+
+    private class Callback extends ConnectivityManager.NetworkCallback {
+        Callback() {
+            super();
+        }
+
+        Callback(int flags) {
+            super(flags);
+        }
+
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+            presence.onNetwork(network.getNetworkHandle(), WifiValidator.officeFor(context, wifiInfo(capabilities)));
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            presence.onLost(network.getNetworkHandle());
+        }
+    }
+
+    private WifiInfo wifiInfo(NetworkCapabilities capabilities) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            // Carries the SSID/BSSID when registered with FLAG_INCLUDE_LOCATION_INFO and the app
+            // holds location permission
+            return capabilities.getTransportInfo() instanceof WifiInfo ? (WifiInfo) capabilities.getTransportInfo() : null;
+        }
+        WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        return wifiManager != null ? wifiManager.getConnectionInfo() : null;
+    }
+}
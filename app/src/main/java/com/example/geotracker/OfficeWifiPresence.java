@@ -0,0 +1,118 @@
+package com.example.geotracker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Which office's Wi-Fi the device is on, kept up to date from network events rather than polled.
+// Each Wi-Fi network is tracked by handle with the office its access point belongs to (or
+// BssidIndex.NO_OFFICE), so losing one network while another is still up does not drop the
+// state. Until the first network event, a direct check can seed the value.
+//
+// Thread-safe. Listeners are told whenever the set of offices whose Wi-Fi is up changes, roaming
+// from one site's access point to another's included, and query the office they care about.
+// They run on the thread that reported the change, outside the lock; network events all come
+// from one ConnectivityManager thread, so they are delivered in order.
+public final class OfficeWifiPresence {
+
+    public interface Listener {
+        void onOfficeWifiChanged();
+    }
+
+    private final Map<Long, Integer> networks = new HashMap<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // A network event has arrived; from then on the seed is ignored
+    private boolean tracking;
+    private Integer seeded;
+    // Offices with an access point up, derived from networks (or the seed); never NO_OFFICE
+    private Set<Integer> offices = Collections.emptySet();
+
+    // On any office's Wi-Fi
+    public synchronized boolean isOnOfficeWifi() {
+        return !offices.isEmpty();
+    }
+
+    // On an access point listed for this office; another site's access point does not count
+    public synchronized boolean isOnOfficeWifi(int officeId) {
+        return offices.contains(officeId);
+    }
+
+    // Whether the value comes from an event or a seed, rather than the default
+    public synchronized boolean isKnown() {
+        return tracking || seeded != null;
+    }
+
+    // A Wi-Fi network came up or its details changed; officeId is BssidIndex.NO_OFFICE for a
+    // network that is not office Wi-Fi
+    public void onNetwork(long network, int officeId) {
+        boolean changed;
+        synchronized (this) {
+            tracking = true;
+            networks.put(network, officeId);
+            changed = recompute();
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    public void onLost(long network) {
+        boolean changed;
+        synchronized (this) {
+            tracking = true;
+            networks.remove(network);
+            changed = recompute();
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    // A direct check; only used until network events take over
+    public void seed(int officeId) {
+        boolean changed;
+        synchronized (this) {
+            if (tracking) {
+                return;
+            }
+            seeded = officeId;
+            changed = recompute();
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Returns whether the set of offices changed
+    private boolean recompute() {
+        Set<Integer> next = new HashSet<>();
+        if (tracking) {
+            next.addAll(networks.values());
+        } else if (seeded != null) {
+            next.add(seeded);
+        }
+        next.remove(BssidIndex.NO_OFFICE);
+        if (next.equals(offices)) {
+            return false;
+        }
+        offices = next;
+        return true;
+    }
+
+    private void notifyListeners() {
+        for (Listener listener : listeners) {
+            listener.onOfficeWifiChanged();
+        }
+    }
+}
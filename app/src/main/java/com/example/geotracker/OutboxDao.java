@@ -0,0 +1,33 @@
+package com.example.geotracker;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface OutboxDao {
+    @Insert
+    long append(OutboxEntry entry);
+
+    @Query("SELECT * FROM sync_outbox WHERE lane = :lane AND seq > :afterSeq ORDER BY seq LIMIT :limit")
+    List<OutboxEntry> getEntriesAfter(String lane, long afterSeq, int limit);
+
+    @Query("SELECT COUNT(*) FROM sync_outbox WHERE lane = :lane AND seq > :afterSeq")
+    int countAfter(String lane, long afterSeq);
+
+    // Age of a lane's queue: creation time of its oldest unacknowledged entry
+    @Query("SELECT MIN(createdAtMillis) FROM sync_outbox WHERE lane = :lane AND seq > :afterSeq")
+    Long getOldestCreatedAfter(String lane, long afterSeq);
+
+    // Acknowledged entries are never read again
+    @Query("DELETE FROM sync_outbox WHERE lane = :lane AND seq <= :seq")
+    void compactThrough(String lane, long seq);
+
+    @Query("SELECT lastSeq FROM sync_cursors WHERE name = :name")
+    Long getCursor(String name);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setCursor(SyncCursor cursor);
+}
@@ -0,0 +1,45 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// One local mutation waiting to be uploaded. seq is strictly increasing, so each lane's sync
+// cursor is just the last seq the backend acknowledged for that lane.
+@Entity(tableName = "sync_outbox",
+        indices = {
+                // getEntriesAfter(): lane = ? AND seq > ? ORDER BY seq
+                @Index({"lane", "seq"})
+        })
+public class OutboxEntry {
+    public static final String OP_CHECK_IN = "CHECK_IN";
+    public static final String OP_CHECK_OUT = "CHECK_OUT";
+    public static final String OP_EDIT = "EDIT";
+
+    // Small, time-sensitive attendance events; uploaded as expedited work without tracks
+    public static final String LANE_EVENTS = "events";
+    // Tracks and other bulk edits; wait for unmetered network and charging
+    public static final String LANE_BULK = "bulk";
+
+    @PrimaryKey(autoGenerate = true)
+    public long seq;
+
+    public int recordId;
+    @NonNull
+    public String op;
+    public long createdAtMillis;
+    @NonNull
+    public String lane;
+
+    public OutboxEntry(int recordId, @NonNull String op, long createdAtMillis) {
+        this.recordId = recordId;
+        this.op = op;
+        this.createdAtMillis = createdAtMillis;
+        this.lane = laneFor(op);
+    }
+
+    public static String laneFor(String op) {
+        return OP_EDIT.equals(op) ? LANE_BULK : LANE_EVENTS;
+    }
+}
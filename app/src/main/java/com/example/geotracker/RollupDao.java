@@ -0,0 +1,40 @@
+package com.example.geotracker;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import java.util.List;
+
+// SQLite on API 29 predates UPSERT, so each rollup row is created with INSERT OR IGNORE and then
+// accumulated with an UPDATE; callers run both inside the session-completing transaction.
+@Dao
+public interface RollupDao {
+    @Query("INSERT OR IGNORE INTO daily_rollups (userId, officeName, day, workedMillis, sessionCount, firstInMillis, lastOutMillis) " +
+            "VALUES (:userId, :officeName, :day, 0, 0, :firstInMillis, :lastOutMillis)")
+    void ensureDaily(String userId, String officeName, long day, long firstInMillis, long lastOutMillis);
+
+    @Query("UPDATE daily_rollups SET workedMillis = workedMillis + :workedMillis, sessionCount = sessionCount + :sessions, " +
+            "firstInMillis = MIN(firstInMillis, :firstInMillis), lastOutMillis = MAX(lastOutMillis, :lastOutMillis) " +
+            "WHERE userId = :userId AND officeName = :officeName AND day = :day")
+    void addToDaily(String userId, String officeName, long day, long workedMillis, int sessions, long firstInMillis, long lastOutMillis);
+
+    @Query("INSERT OR IGNORE INTO weekly_rollups (userId, officeName, weekStartDay, workedMillis, sessionCount, firstInMillis, lastOutMillis) " +
+            "VALUES (:userId, :officeName, :weekStartDay, 0, 0, :firstInMillis, :lastOutMillis)")
+    void ensureWeekly(String userId, String officeName, long weekStartDay, long firstInMillis, long lastOutMillis);
+
+    @Query("UPDATE weekly_rollups SET workedMillis = workedMillis + :workedMillis, sessionCount = sessionCount + :sessions, " +
+            "firstInMillis = MIN(firstInMillis, :firstInMillis), lastOutMillis = MAX(lastOutMillis, :lastOutMillis) " +
+            "WHERE userId = :userId AND officeName = :officeName AND weekStartDay = :weekStartDay")
+    void addToWeekly(String userId, String officeName, long weekStartDay, long workedMillis, int sessions, long firstInMillis, long lastOutMillis);
+
+    @Query("SELECT * FROM daily_rollups WHERE userId = :userId AND day BETWEEN :fromDay AND :toDay ORDER BY day")
+    List<DailyRollup> getDaily(String userId, long fromDay, long toDay);
+
+    @Query("SELECT * FROM weekly_rollups WHERE userId = :userId AND weekStartDay BETWEEN :fromDay AND :toDay ORDER BY weekStartDay")
+    List<WeeklyRollup> getWeekly(String userId, long fromDay, long toDay);
+
+    @Query("DELETE FROM daily_rollups")
+    void clearDaily();
+
+    @Query("DELETE FROM weekly_rollups")
+    void clearWeekly();
+}
@@ -0,0 +1,112 @@
+package com.example.geotracker;
+
+import android.content.Context;
+
+// Process-wide owner of the active attendance session. The active record is loaded from Room
+// once and then served from memory; every write goes to the database first and only updates
+// the cache after it commits, all under one lock so readers never see a half-applied change.
+public class SessionRepository implements AttendanceStore {
+    private static volatile SessionRepository INSTANCE;
+
+    private final AppDatabase db;
+    private final Object lock = new Object();
+
+    private volatile boolean loaded = false;
+    private volatile AttendanceRecord activeSession;
+
+    private SessionRepository(AppDatabase db) {
+        this.db = db;
+    }
+
+    public static SessionRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (SessionRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SessionRepository(AppDatabase.getInstance(context));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // May touch the database on the first call only; do not call on the main thread
+    @Override
+    public AttendanceRecord getActiveSession() {
+        if (loaded) {
+            return activeSession;
+        }
+        synchronized (lock) {
+            if (!loaded) {
+                activeSession = db.attendanceDao().getActiveRecord();
+                loaded = true;
+            }
+            return activeSession;
+        }
+    }
+
+    public boolean hasActiveSession() {
+        return getActiveSession() != null;
+    }
+
+    // Opens a session unless one is already active; returns the new record, or null if not opened
+    @Override
+    public AttendanceRecord startSession(int officeId, String officeName, String userId, long checkInMillis) {
+        synchronized (lock) {
+            if (getActiveSession() != null) {
+                return null;
+            }
+            AttendanceRecord record = new AttendanceRecord(officeName, checkInMillis);
+            record.officeId = officeId >= 0 ? officeId : null;
+            record.userId = userId;
+            AttendanceRecord[] existing = new AttendanceRecord[1];
+            try {
+                db.runInTransaction(() -> {
+                    // The check is repeated inside the transaction so it and the insert are one
+                    // atomic step, whatever the cache believed
+                    existing[0] = db.attendanceDao().getActiveRecord();
+                    if (existing[0] != null) {
+                        return;
+                    }
+                    record.id = (int) db.attendanceDao().insert(record);
+                    AttendanceOutbox.append(db, record.id, OutboxEntry.OP_CHECK_IN);
+                });
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+            if (existing[0] != null) {
+                activeSession = existing[0];
+                return null;
+            }
+            activeSession = record;
+            return record;
+        }
+    }
+
+    // Checks out the active session (record + rollups in one transaction); returns it, or null
+    @Override
+    public AttendanceRecord completeActiveSession(long checkOutMillis) {
+        synchronized (lock) {
+            AttendanceRecord active = getActiveSession();
+            if (active == null) {
+                return null;
+            }
+            // The cached record stays untouched until the commit: lock-free readers may hold it
+            AttendanceRecord record = active.copy();
+            record.complete(checkOutMillis);
+            // If this throws, the transaction rolled back and the cached record is still accurate
+            boolean checkedOut = AttendanceRollups.completeSession(db, record);
+            activeSession = null;
+            // Already checked out by another writer: there was no session left to complete
+            return checkedOut ? record : null;
+        }
+    }
+
+    // Forces the next read to go to the database, e.g. after an out-of-band write
+    public void invalidate() {
+        synchronized (lock) {
+            loaded = false;
+            activeSession = null;
+        }
+    }
+}
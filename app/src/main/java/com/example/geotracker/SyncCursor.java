@@ -0,0 +1,19 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "sync_cursors")
+public class SyncCursor {
+    @PrimaryKey
+    @NonNull
+    public String name;
+    // Highest outbox seq the backend has acknowledged
+    public long lastSeq;
+
+    public SyncCursor(@NonNull String name, long lastSeq) {
+        this.name = name;
+        this.lastSeq = lastSeq;
+    }
+}
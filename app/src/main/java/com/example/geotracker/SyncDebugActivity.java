@@ -0,0 +1,58 @@
+package com.example.geotracker;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+
+// Field diagnostics for sync: lane queues, the metrics ring and executor stats. Opened by
+// long-pressing the sync button; Export shares the same dump as plain text.
+public class SyncDebugActivity extends AppCompatActivity {
+
+    private TextView metricsTextView;
+    private String lastDump = "";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_sync_debug);
+        setTitle("Sync metrics");
+
+        metricsTextView = findViewById(R.id.metricsTextView);
+
+        Button btnRefresh = findViewById(R.id.btnRefreshMetrics);
+        btnRefresh.setOnClickListener(v -> loadMetrics());
+
+        Button btnExport = findViewById(R.id.btnExportMetrics);
+        btnExport.setOnClickListener(v -> exportMetrics());
+
+        Button btnClear = findViewById(R.id.btnClearMetrics);
+        btnClear.setOnClickListener(v -> AppExecutors.getInstance().diskWrite().execute(() -> {
+            AppDatabase.getInstance(this).syncMetricsDao().clear();
+            AppExecutors.getInstance().mainThread().execute(this::loadMetrics);
+        }));
+
+        loadMetrics();
+    }
+
+    private void loadMetrics() {
+        metricsTextView.setText("Loading...");
+        AppExecutors.getInstance().io().execute(() -> {
+            String dump = SyncMetricsStore.dump(getApplicationContext());
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                lastDump = dump;
+                metricsTextView.setText(dump);
+            });
+        });
+    }
+
+    private void exportMetrics() {
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("text/plain");
+        send.putExtra(Intent.EXTRA_SUBJECT, "GeoTracker sync metrics " + TimeFormats.timestamp(System.currentTimeMillis()));
+        send.putExtra(Intent.EXTRA_TEXT, lastDump);
+        startActivity(Intent.createChooser(send, "Export sync metrics"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+// Running totals per sync lane, kept in SharedPreferences so they survive the worker process.
+// Queue depth and age are read from the lane's outbox when the metrics are described.
+public class SyncLaneMetrics {
+    private static final String TAG = "SyncLaneMetrics";
+    private static final String PREFS_NAME = "SyncLaneMetrics";
+
+    public static void recordRun(Context context, String lane, SyncResult result, long elapsedMillis) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit()
+                .putLong(lane + ".runs", prefs.getLong(lane + ".runs", 0) + 1)
+                .putLong(lane + ".aborted", prefs.getLong(lane + ".aborted", 0) + (result.aborted ? 1 : 0))
+                .putLong(lane + ".synced", prefs.getLong(lane + ".synced", 0) + result.synced)
+                .putLong(lane + ".failed", prefs.getLong(lane + ".failed", 0) + result.failed)
+                .putLong(lane + ".bytes", prefs.getLong(lane + ".bytes", 0) + result.bytesSent)
+                .putLong(lane + ".lastRunMillis", System.currentTimeMillis())
+                .putLong(lane + ".lastElapsedMillis", elapsedMillis)
+                .apply();
+    }
+
+    // Blocks on the database; call off the main thread
+    public static String describe(Context context, String lane) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        OutboxDao outbox = AppDatabase.getInstance(context).outboxDao();
+        Long cursor = outbox.getCursor(lane);
+        long afterSeq = cursor != null ? cursor : 0;
+        int pending = outbox.countAfter(lane, afterSeq);
+        Long oldest = outbox.getOldestCreatedAfter(lane, afterSeq);
+        long ageSeconds = oldest != null ? Math.max(0, System.currentTimeMillis() - oldest) / 1000 : 0;
+
+        return lane + ": pending=" + pending + " oldestAge=" + ageSeconds + "s"
+                + " runs=" + prefs.getLong(lane + ".runs", 0)
+                + " aborted=" + prefs.getLong(lane + ".aborted", 0)
+                + " synced=" + prefs.getLong(lane + ".synced", 0)
+                + " failed=" + prefs.getLong(lane + ".failed", 0)
+                + " bytes=" + prefs.getLong(lane + ".bytes", 0)
+                + " lastRun=" + prefs.getLong(lane + ".lastElapsedMillis", 0) + "ms";
+    }
+
+    public static void log(Context context, String lane) {
+        Log.i(TAG, describe(context, lane));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.geotracker;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface SyncMetricsDao {
+    @Query("SELECT MAX(runSeq) FROM sync_run_metrics")
+    Long getLastRunSeq();
+
+    // Replaces whatever run held the slot before
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(SyncRunMetric metric);
+
+    @Query("SELECT * FROM sync_run_metrics ORDER BY runSeq DESC")
+    List<SyncRunMetric> getRuns();
+
+    @Query("DELETE FROM sync_run_metrics")
+    void clear();
+}
@@ -0,0 +1,117 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ring buffer of the last CAPACITY sync runs in Room, plus the text dump shown by
+// SyncDebugActivity and attached to exports.
+public class SyncMetricsStore {
+    static final int CAPACITY = 200;
+
+    public static void record(AppDatabase db, SyncRunStats stats, int attempt) {
+        SyncMetricsDao dao = db.syncMetricsDao();
+        db.runInTransaction(() -> {
+            Long last = dao.getLastRunSeq();
+            long runSeq = last != null ? last + 1 : 0;
+
+            SyncRunMetric metric = new SyncRunMetric();
+            metric.slot = (int) (runSeq % CAPACITY);
+            metric.runSeq = runSeq;
+            metric.lane = stats.lane;
+            metric.transport = stats.transport;
+            metric.attempt = attempt;
+            metric.startedAtMillis = stats.startedAtMillis;
+            metric.elapsedMillis = stats.elapsedMillis;
+            metric.pendingAtStart = stats.pendingAtStart;
+            metric.oldestQueueAgeMillis = stats.oldestQueueAgeMillis;
+            metric.records = stats.records;
+            metric.rejected = stats.rejected;
+            metric.bytes = stats.bytes;
+            metric.batches = stats.batches;
+            metric.retries = stats.retries;
+            metric.aborted = stats.aborted;
+            metric.errors = stats.encodeErrors();
+            metric.uploadLatency = stats.uploadLatency.encode();
+            metric.queueLatency = stats.queueLatency.encode();
+            dao.put(metric);
+        });
+    }
+
+    // Blocks on the database; call off the main thread
+    public static String dump(Context context) {
+        AppDatabase db = AppDatabase.getInstance(context);
+        List<SyncRunMetric> runs = db.syncMetricsDao().getRuns();
+        StringBuilder out = new StringBuilder();
+
+        out.append("== Lanes ==\n");
+        out.append(SyncLaneMetrics.describe(context, OutboxEntry.LANE_EVENTS)).append('\n');
+        out.append(SyncLaneMetrics.describe(context, OutboxEntry.LANE_BULK)).append('\n');
+
+        out.append("\n== Last ").append(runs.size()).append(" runs, by lane ==\n");
+        for (String lane : new String[]{OutboxEntry.LANE_EVENTS, OutboxEntry.LANE_BULK}) {
+            appendLaneSummary(out, lane, runs);
+        }
+
+        out.append("\n== Executors ==\n").append(AppExecutors.getInstance().dumpMetrics()).append('\n');
+
+        out.append("\n== Runs (newest first) ==\n");
+        out.append("started,lane,transport,attempt,elapsedMs,pending,oldestAgeMs,records,rejected,bytes,")
+                .append("batches,retries,aborted,errors,uploadLatency,queueLatency\n");
+        for (SyncRunMetric run : runs) {
+            out.append(TimeFormats.timestamp(run.startedAtMillis)).append(',')
+                    .append(run.lane).append(',')
+                    .append(run.transport).append(',')
+                    .append(run.attempt).append(',')
+                    .append(run.elapsedMillis).append(',')
+                    .append(run.pendingAtStart).append(',')
+                    .append(run.oldestQueueAgeMillis).append(',')
+                    .append(run.records).append(',')
+                    .append(run.rejected).append(',')
+                    .append(run.bytes).append(',')
+                    .append(run.batches).append(',')
+                    .append(run.retries).append(',')
+                    .append(run.aborted).append(',')
+                    .append('"').append(run.errors).append("\",")
+                    .append(run.uploadLatency).append(',')
+                    .append(run.queueLatency).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendLaneSummary(StringBuilder out, String lane, List<SyncRunMetric> runs) {
+        LatencyHistogram upload = new LatencyHistogram();
+        LatencyHistogram queue = new LatencyHistogram();
+        Map<String, Integer> errors = new LinkedHashMap<>();
+        int count = 0;
+        int aborted = 0;
+        long records = 0;
+        long bytes = 0;
+        long maxQueueAge = 0;
+        for (SyncRunMetric run : runs) {
+            if (!lane.equals(run.lane)) continue;
+            count++;
+            if (run.aborted) aborted++;
+            records += run.records;
+            bytes += run.bytes;
+            maxQueueAge = Math.max(maxQueueAge, run.oldestQueueAgeMillis);
+            upload.add(LatencyHistogram.decode(run.uploadLatency));
+            queue.add(LatencyHistogram.decode(run.queueLatency));
+            if (run.errors != null && !run.errors.isEmpty()) {
+                for (String error : run.errors.split(",")) {
+                    int colon = error.lastIndexOf(':');
+                    errors.merge(error.substring(0, colon), Integer.parseInt(error.substring(colon + 1)), Integer::sum);
+                }
+            }
+        }
+        out.append(lane).append(": runs=").append(count)
+                .append(" aborted=").append(aborted)
+                .append(" records=").append(records)
+                .append(" bytes/record=").append(records > 0 ? bytes / records : 0)
+                .append(" maxQueueAge=").append(maxQueueAge / 1000).append("s\n")
+                .append("  upload ").append(upload.summary()).append('\n')
+                .append("  queue  ").append(queue.summary()).append('\n')
+                .append("  errors ").append(errors).append('\n');
+    }
+}
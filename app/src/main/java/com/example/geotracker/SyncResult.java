@@ -0,0 +1,38 @@
+package com.example.geotracker;
+
+// Outcome of one sync run
+public class SyncResult {
+    public final int synced;
+    // Records the backend rejected outright. Their outbox entries were dropped, so a retry would
+    // not send them again; only their next edit does.
+    public final int failed;
+    // True when the backend could not be reached and the run stopped early
+    public final boolean aborted;
+    // Payload bytes the transport reported for the batches it accepted
+    public final long bytesSent;
+    // Detailed measurements of the run; null for results not produced by FirestoreSyncHelper
+    public final SyncRunStats stats;
+
+    public SyncResult(int synced, int failed, boolean aborted) {
+        this(synced, failed, aborted, 0, null);
+    }
+
+    public SyncResult(int synced, int failed, boolean aborted, long bytesSent, SyncRunStats stats) {
+        this.synced = synced;
+        this.failed = failed;
+        this.aborted = aborted;
+        this.bytesSent = bytesSent;
+        this.stats = stats;
+    }
+
+    // Only an unreachable backend leaves entries behind for a retry to pick up
+    public boolean needsRetry() {
+        return aborted;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{synced=" + synced + ", failed=" + failed + ", aborted=" + aborted
+                + ", bytesSent=" + bytesSent + "}";
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// One sync run in the metrics ring. slot = runSeq % capacity, so the table never grows past
+// the capacity and a new run overwrites the oldest one in place.
+@Entity(tableName = "sync_run_metrics")
+public class SyncRunMetric {
+    @PrimaryKey
+    public int slot;
+    public long runSeq;
+
+    @NonNull
+    public String lane = OutboxEntry.LANE_EVENTS;
+    public String transport;
+    // WorkManager run attempt; > 0 means the worker is retrying
+    public int attempt;
+    public long startedAtMillis;
+    public long elapsedMillis;
+    public int pendingAtStart;
+    public long oldestQueueAgeMillis;
+    public int records;
+    public int rejected;
+    public long bytes;
+    public int batches;
+    public int retries;
+    public boolean aborted;
+    // "type:count,..." (SyncRunStats.encodeErrors)
+    public String errors;
+    // LatencyHistogram.encode()
+    public String uploadLatency;
+    public String queueLatency;
+}
@@ -0,0 +1,62 @@
+package com.example.geotracker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Everything measured during one FirestoreSyncHelper run; SyncMetricsStore persists it
+public class SyncRunStats {
+    public final String lane;
+    public final String transport;
+    public final long startedAtMillis;
+    public int pendingAtStart;
+    // Age of the oldest unacknowledged outbox entry when the run started
+    public long oldestQueueAgeMillis;
+    public long elapsedMillis;
+
+    public int records;
+    public int rejected;
+    public long bytes;
+    public int batches;
+    // Windows retried with half the entries after a non-retryable error
+    public int retries;
+    public boolean aborted;
+    // Error type -> occurrences, e.g. "http.503" or "firestore.UNAVAILABLE"
+    public final Map<String, Integer> errors = new TreeMap<>();
+    // Round trip of each transport upload
+    public final LatencyHistogram uploadLatency = new LatencyHistogram();
+    // Per outbox entry: from the local write to the backend acknowledging it
+    public final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    public SyncRunStats(String lane, String transport, long startedAtMillis) {
+        this.lane = lane;
+        this.transport = transport;
+        this.startedAtMillis = startedAtMillis;
+    }
+
+    void onBatch(int records, long bytes, long latencyMillis) {
+        this.records += records;
+        this.bytes += bytes;
+        batches++;
+        uploadLatency.record(latencyMillis);
+    }
+
+    void onAcknowledged(List<OutboxEntry> entries, long nowMillis) {
+        for (OutboxEntry entry : entries) {
+            queueLatency.record(nowMillis - entry.createdAtMillis);
+        }
+    }
+
+    void onError(String errorType) {
+        errors.merge(errorType, 1, Integer::sum);
+    }
+
+    public String encodeErrors() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Integer> error : errors.entrySet()) {
+            if (out.length() > 0) out.append(',');
+            out.append(error.getKey()).append(':').append(error.getValue());
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+import java.util.concurrent.TimeUnit;
+
+// Each outbox lane has its own unique work chain, so repeated triggers collapse instead of
+// piling up separate workers, and a bulk upload never queues in front of an attendance event.
+public class SyncScheduler {
+    static final String UNIQUE_WORK_NAME = "attendance-sync";
+    static final String BULK_UNIQUE_WORK_NAME = "attendance-sync-bulk";
+    private static final long BACKOFF_SECONDS = 30;
+    private static final long BULK_BACKOFF_MINUTES = 15;
+
+    // Opportunistic triggers (screen resume, sync button): if a sync is queued or running, keep it
+    public static void requestSync(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, buildEventsRequest());
+        workManager.enqueueUniqueWork(BULK_UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, buildBulkRequest());
+    }
+
+    // After an attendance event is written (check-out): queue behind a running sync so the new
+    // record is picked up even if that run already read its batch
+    public static void requestSyncAfterChange(Context context) {
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, buildEventsRequest());
+    }
+
+    // After bulk data is written (a compacted track)
+    public static void requestBulkSync(Context context) {
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(BULK_UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, buildBulkRequest());
+    }
+
+    // Expedited: runs as soon as there is any network. Falls back to regular work when the
+    // app is out of expedited quota rather than dropping the event.
+    private static OneTimeWorkRequest buildEventsRequest() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        return new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setInputData(SyncWorker.inputFor(OutboxEntry.LANE_EVENTS))
+                .setConstraints(constraints)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    // Deferred: waits for Wi-Fi (or another unmetered network) while charging
+    private static OneTimeWorkRequest buildBulkRequest() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        return new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setInputData(SyncWorker.inputFor(OutboxEntry.LANE_BULK))
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BULK_BACKOFF_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.geotracker;
+
+import java.util.Map;
+
+// Backend that sync uploads go through. FirestoreSyncHelper owns ordering, batching and the
+// outbox; a transport only has to write one batch atomically.
+public interface SyncTransport {
+    // Writes every record in the batch, keyed by its document id, or none of them. Blocks until
+    // the backend acknowledges and returns the number of payload bytes sent.
+    long upload(Map<String, AttendanceRecord> batch) throws SyncTransportException;
+
+    String name();
+}
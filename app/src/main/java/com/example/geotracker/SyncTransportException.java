@@ -0,0 +1,17 @@
+package com.example.geotracker;
+
+public class SyncTransportException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    // Short, stable label for metrics, e.g. "timeout", "http.503", "firestore.UNAVAILABLE"
+    public final String errorType;
+    // True when the backend could not be reached (offline, timeout, 5xx); false when it rejected
+    // the batch itself, which a smaller batch might get past
+    public final boolean unreachable;
+
+    public SyncTransportException(String message, String errorType, boolean unreachable, Throwable cause) {
+        super(message, cause);
+        this.errorType = errorType;
+        this.unreachable = unreachable;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+// Picks the sync backend. Firestore is the default; setting "transport" to "http" in SyncPrefs
+// (with "httpEndpoint" and optionally "httpToken") sends uploads to a plain HTTP server instead,
+// e.g. a local stand-in for load tests.
+public class SyncTransports {
+    private static final String TAG = "SyncTransports";
+    public static final String PREFS_NAME = "SyncPrefs";
+    public static final String KEY_TRANSPORT = "transport";
+    public static final String KEY_HTTP_ENDPOINT = "httpEndpoint";
+    public static final String KEY_HTTP_TOKEN = "httpToken";
+
+    public static SyncTransport create(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if ("http".equals(prefs.getString(KEY_TRANSPORT, null))) {
+            String endpoint = prefs.getString(KEY_HTTP_ENDPOINT, null);
+            try {
+                return new HttpSyncTransport(new URL(endpoint),
+                        DeviceIdentity.getInstallationId(context),
+                        prefs.getString(KEY_HTTP_TOKEN, null));
+            } catch (MalformedURLException e) {
+                Log.e(TAG, "Invalid sync endpoint " + endpoint + ", falling back to Firestore", e);
+            }
+        }
+        return new FirestoreSyncTransport(FirebaseFirestore.getInstance());
+    }
+}
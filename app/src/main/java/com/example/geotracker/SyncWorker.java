@@ -1,19 +1,73 @@
 package com.example.geotracker;
 
+import android.app.Notification;
 import android.content.Context;
+import android.content.pm.ServiceInfo;
+import android.os.SystemClock;
+import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Data;
+import androidx.work.ForegroundInfo;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
+// Syncs one outbox lane; SyncScheduler enqueues a separate chain per lane
 public class SyncWorker extends Worker {
+    private static final String TAG = "SyncWorker";
+    static final String KEY_LANE = "lane";
+    // After this many attempts the run is reported as failed; the next trigger starts over
+    private static final int MAX_ATTEMPTS = 6;
+    private static final int FOREGROUND_NOTIFICATION_ID = 1002;
+
     public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
 
+    static Data inputFor(String lane) {
+        return new Data.Builder().putString(KEY_LANE, lane).build();
+    }
+
     @NonNull
     @Override
     public Result doWork() {
-        new FirestoreSyncHelper().syncRecords(getApplicationContext());
-        return Result.success();
+        String lane = getInputData().getString(KEY_LANE);
+        if (lane == null) {
+            lane = OutboxEntry.LANE_EVENTS;
+        }
+
+        // doWork() already runs on a background thread, so sync inline and report the real outcome
+        long started = SystemClock.elapsedRealtime();
+        SyncResult result = new FirestoreSyncHelper(getApplicationContext()).syncNow(lane);
+        SyncLaneMetrics.recordRun(getApplicationContext(), lane, result, SystemClock.elapsedRealtime() - started);
+        if (result.stats != null && result.stats.pendingAtStart > 0) {
+            // Runs that found nothing to do would only push useful history out of the ring
+            SyncMetricsStore.record(AppDatabase.getInstance(getApplicationContext()), result.stats, getRunAttemptCount());
+        }
+        Log.d(TAG, lane + " attempt " + getRunAttemptCount() + ": " + result);
+        SyncLaneMetrics.log(getApplicationContext(), lane);
+
+        if (!result.needsRetry()) {
+            return Result.success();
+        }
+        return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+    }
+
+    // Expedited work runs as a foreground service before Android 12 and needs a notification
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        Context context = getApplicationContext();
+        NotificationHelper.createNotificationChannels(context);
+        Notification notification = new NotificationCompat.Builder(context, NotificationHelper.CHANNEL_ID)
+                .setContentTitle("GeoTracker")
+                .setContentText("Uploading attendance...")
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+        return new ForegroundInfo(FOREGROUND_NOTIFICATION_ID, notification,
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
     }
-}
\ No newline at end of file
+}
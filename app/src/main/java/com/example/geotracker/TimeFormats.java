@@ -0,0 +1,42 @@
+package com.example.geotracker;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Display helpers for epoch-millis timestamps. Records store raw millis; these are only
+// used when text is actually shown or uploaded.
+public final class TimeFormats {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a", Locale.getDefault());
+    private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.getDefault());
+
+    private TimeFormats() {
+    }
+
+    // "yyyy-MM-dd HH:mm:ss", the format records used before they were stored as millis
+    public static String timestamp(long epochMillis) {
+        return TIMESTAMP.format(toLocal(epochMillis));
+    }
+
+    public static String display(long epochMillis) {
+        return DISPLAY.format(toLocal(epochMillis));
+    }
+
+    public static String clock(long epochMillis) {
+        return CLOCK.format(toLocal(epochMillis));
+    }
+
+    public static String duration(long durationMillis) {
+        long hours = TimeUnit.MILLISECONDS.toHours(durationMillis);
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(durationMillis) % 60;
+        return String.format(Locale.getDefault(), "%dh %02dm", hours, minutes);
+    }
+
+    private static ZonedDateTime toLocal(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.geotracker;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact storage for a session's breadcrumbs.
+//
+// Points are first thinned with an opening-window simplifier (streaming, so a full day never
+// has to be held twice), then written as zigzag varint deltas: 1e-5 degrees (~1.1 m) for
+// latitude/longitude and whole seconds for time. A typical fix costs 3-5 bytes.
+public final class TrackCodec {
+    public static final double DEFAULT_TOLERANCE_METERS = 5.0;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final double COORD_SCALE = 1e5;
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    // Bounds the per-point cost of the simplifier on long straight stretches
+    private static final int MAX_WINDOW = 64;
+
+    private TrackCodec() {
+    }
+
+    public static final class TrackPoint {
+        public final double latitude;
+        public final double longitude;
+        public final long timeMillis;
+
+        public TrackPoint(double latitude, double longitude, long timeMillis) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    // Online simplifier: feed points in time order, then call finish() for the retained ones
+    public static final class Simplifier {
+        private final double toleranceMeters;
+        private final List<TrackPoint> output = new ArrayList<>();
+        private final List<TrackPoint> window = new ArrayList<>();
+        private TrackPoint anchor;
+
+        public Simplifier(double toleranceMeters) {
+            this.toleranceMeters = toleranceMeters;
+        }
+
+        public void add(TrackPoint point) {
+            if (anchor == null) {
+                anchor = point;
+                output.add(point);
+                return;
+            }
+            if (!window.isEmpty() && (window.size() >= MAX_WINDOW || !fitsSegment(point))) {
+                // The previous point is the furthest the current segment can reach
+                anchor = window.get(window.size() - 1);
+                output.add(anchor);
+                window.clear();
+            }
+            window.add(point);
+        }
+
+        public List<TrackPoint> finish() {
+            if (!window.isEmpty()) {
+                output.add(window.get(window.size() - 1));
+                window.clear();
+            }
+            return output;
+        }
+
+        private boolean fitsSegment(TrackPoint end) {
+            for (int i = 0; i < window.size(); i++) {
+                if (distanceToSegment(window.get(i), anchor, end) > toleranceMeters) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static List<TrackPoint> simplify(List<TrackPoint> points, double toleranceMeters) {
+        Simplifier simplifier = new Simplifier(toleranceMeters);
+        for (TrackPoint point : points) {
+            simplifier.add(point);
+        }
+        return simplifier.finish();
+    }
+
+    // Simplifies with the default tolerance and encodes in one step
+    public static byte[] compress(List<TrackPoint> points) {
+        return encode(simplify(points, DEFAULT_TOLERANCE_METERS));
+    }
+
+    public static byte[] encode(List<TrackPoint> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + points.size() * 5);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, points.size());
+
+        long prevLat = 0;
+        long prevLon = 0;
+        long prevSeconds = 0;
+        for (TrackPoint point : points) {
+            long lat = Math.round(point.latitude * COORD_SCALE);
+            long lon = Math.round(point.longitude * COORD_SCALE);
+            long seconds = Math.round(point.timeMillis / 1000.0);
+            writeVarint(out, zigzag(lat - prevLat));
+            writeVarint(out, zigzag(lon - prevLon));
+            writeVarint(out, zigzag(seconds - prevSeconds));
+            prevLat = lat;
+            prevLon = lon;
+            prevSeconds = seconds;
+        }
+        return out.toByteArray();
+    }
+
+    public static List<TrackPoint> decode(byte[] data) {
+        int[] pos = {0};
+        int version = data[pos[0]++];
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported track format " + version);
+        }
+        int count = (int) readVarint(data, pos);
+        List<TrackPoint> points = new ArrayList<>(count);
+
+        long lat = 0;
+        long lon = 0;
+        long seconds = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(data, pos));
+            lon += unzigzag(readVarint(data, pos));
+            seconds += unzigzag(readVarint(data, pos));
+            points.add(new TrackPoint(lat / COORD_SCALE, lon / COORD_SCALE, seconds * 1000));
+        }
+        return points;
+    }
+
+    // Distance from p to segment a-b on a local equirectangular projection; accurate to well
+    // under a meter at the scale of an office campus.
+    static double distanceToSegment(TrackPoint p, TrackPoint a, TrackPoint b) {
+        double cosLat = Math.cos(Math.toRadians(a.latitude));
+        double bx = Math.toRadians(b.longitude - a.longitude) * cosLat * EARTH_RADIUS_METERS;
+        double by = Math.toRadians(b.latitude - a.latitude) * EARTH_RADIUS_METERS;
+        double px = Math.toRadians(p.longitude - a.longitude) * cosLat * EARTH_RADIUS_METERS;
+        double py = Math.toRadians(p.latitude - a.latitude) * EARTH_RADIUS_METERS;
+
+        double lengthSq = bx * bx + by * by;
+        double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / lengthSq));
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.geotracker;
+
+import android.util.Log;
+import java.util.List;
+
+// Replaces a closed session's raw breadcrumb rows with a single TrackCodec blob on the record.
+public class TrackCompactor {
+    private static final String TAG = "TrackCompactor";
+
+    // Returns true when a new track was written and queued on the bulk sync lane
+    public static boolean compact(AppDatabase db, int recordId) {
+        return db.runInTransaction(() -> {
+            AttendanceRecord record = db.attendanceDao().getRecord(recordId);
+            if (record == null || !record.completed) {
+                // Still active (or gone); keep collecting raw breadcrumbs
+                return false;
+            }
+
+            List<LocationBreadcrumb> breadcrumbs = db.breadcrumbDao().getForRecord(recordId);
+            if (breadcrumbs.isEmpty()) {
+                return false;
+            }
+
+            TrackCodec.Simplifier simplifier = new TrackCodec.Simplifier(TrackCodec.DEFAULT_TOLERANCE_METERS);
+            if (record.track != null) {
+                // Session was compacted before (e.g. service restarted); extend the old track
+                for (TrackCodec.TrackPoint point : TrackCodec.decode(record.track)) {
+                    simplifier.add(point);
+                }
+            }
+            for (LocationBreadcrumb breadcrumb : breadcrumbs) {
+                simplifier.add(new TrackCodec.TrackPoint(breadcrumb.latitude, breadcrumb.longitude, breadcrumb.timeMillis));
+            }
+            List<TrackCodec.TrackPoint> points = simplifier.finish();
+            byte[] blob = TrackCodec.encode(points);
+
+            db.attendanceDao().setTrack(recordId, blob, points.size());
+            db.breadcrumbDao().deleteForRecord(recordId);
+            AttendanceOutbox.append(db, recordId, OutboxEntry.OP_EDIT);
+            Log.d(TAG, "Record " + recordId + ": " + breadcrumbs.size() + " fixes -> "
+                    + points.size() + " points, " + blob.length + " bytes");
+            return true;
+        });
+    }
+}
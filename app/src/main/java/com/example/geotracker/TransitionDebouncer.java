@@ -0,0 +1,218 @@
+package com.example.geotracker;
+
+// Hysteresis between raw fence events and attendance. Arriving needs a fix well inside the fence
+// (inside the inner radius) at least dwellMillis after the first sign of arrival, or a Play
+// DWELL; leaving needs grace to pass without a fix back inside. Fixes in the band between the
+// inner and outer radius never change the outcome, so GPS jitter at the edge is absorbed.
+//
+// Pure state: no clock, threads or storage. Not thread-safe; TransitionStateStore serializes it.
+public final class TransitionDebouncer {
+
+    public enum State {
+        OUTSIDE,
+        // Entered, waiting for the dwell to be confirmed
+        ARRIVING,
+        INSIDE,
+        // Exit seen during a session, waiting out the grace period
+        LEAVING
+    }
+
+    // Where a fix puts the user relative to the fence, accuracy included
+    public enum Zone {
+        INNER,
+        BAND,
+        OUTER
+    }
+
+    public enum Action {
+        NONE,
+        CHECK_IN,
+        CHECK_OUT
+    }
+
+    public static final class Config {
+        // Inner radius = fence edge pulled in by this much; a footprint's outline is shrunk alike
+        public final float innerMarginMeters;
+        // Outer radius = fence edge pushed out by this much
+        public final float outerMarginMeters;
+        public final long dwellMillis;
+        public final long graceMillis;
+
+        public static final Config DEFAULT = new Config(30, 50, 3 * 60_000, 10 * 60_000);
+
+        public Config(float innerMarginMeters, float outerMarginMeters, long dwellMillis, long graceMillis) {
+            this.innerMarginMeters = innerMarginMeters;
+            this.outerMarginMeters = outerMarginMeters;
+            this.dwellMillis = dwellMillis;
+            this.graceMillis = graceMillis;
+        }
+    }
+
+    private final Config config;
+    private State state = State.OUTSIDE;
+    private int officeId = -1;
+    private long since;
+
+    public TransitionDebouncer(Config config) {
+        this.config = config;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Office the current state is about; -1 when OUTSIDE
+    public int getOfficeId() {
+        return officeId;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    // When tick() could next produce an action, or -1
+    public long nextDeadline() {
+        return state == State.LEAVING ? since + config.graceMillis : -1;
+    }
+
+    // Play ENTER for the office's trigger circle
+    public Action onEnter(int office, long nowMillis) {
+        if (state == State.OUTSIDE) {
+            moveTo(State.ARRIVING, office, nowMillis);
+        } else if (state == State.LEAVING && office == officeId) {
+            // Back before the grace ran out: same session
+            moveTo(State.INSIDE, office, nowMillis);
+        }
+        return Action.NONE;
+    }
+
+    // Play DWELL: Play services has already seen the user stay dwellMillis inside the circle
+    public Action onDwell(int office, long nowMillis) {
+        if (state == State.OUTSIDE || (state == State.ARRIVING && office == officeId)) {
+            moveTo(State.INSIDE, office, nowMillis);
+            return Action.CHECK_IN;
+        }
+        if (state == State.LEAVING && office == officeId) {
+            moveTo(State.INSIDE, office, nowMillis);
+        }
+        return Action.NONE;
+    }
+
+    // Play EXIT for the office's trigger circle. While arriving it is no stronger than a band fix
+    // (the circle is the fence edge, not the outer radius), so only an OUTER fix calls it off.
+    public Action onExit(int office, long nowMillis) {
+        if (office == officeId && state == State.INSIDE) {
+            moveTo(State.LEAVING, office, nowMillis);
+        }
+        return Action.NONE;
+    }
+
+    // A local fix, already reduced to a zone of `office`
+    public Action onFix(int office, Zone zone, long nowMillis) {
+        switch (state) {
+            case OUTSIDE:
+                if (zone == Zone.INNER) {
+                    moveTo(State.ARRIVING, office, nowMillis);
+                }
+                return Action.NONE;
+            case ARRIVING:
+                if (office != officeId) {
+                    return Action.NONE;
+                }
+                if (zone == Zone.OUTER) {
+                    moveTo(State.OUTSIDE, -1, nowMillis);
+                } else if (zone == Zone.INNER && nowMillis - since >= config.dwellMillis) {
+                    moveTo(State.INSIDE, office, nowMillis);
+                    return Action.CHECK_IN;
+                }
+                return Action.NONE;
+            case INSIDE:
+                if (office == officeId && zone == Zone.OUTER) {
+                    moveTo(State.LEAVING, office, nowMillis);
+                }
+                return Action.NONE;
+            case LEAVING:
+                if (office != officeId) {
+                    return Action.NONE;
+                }
+                if (zone == Zone.INNER) {
+                    moveTo(State.INSIDE, office, nowMillis);
+                    return Action.NONE;
+                }
+                return tick(nowMillis);
+            default:
+                return Action.NONE;
+        }
+    }
+
+    // Time passing with no new evidence
+    public Action tick(long nowMillis) {
+        if (state == State.LEAVING && nowMillis - since >= config.graceMillis) {
+            moveTo(State.OUTSIDE, -1, nowMillis);
+            return Action.CHECK_OUT;
+        }
+        return Action.NONE;
+    }
+
+    // A session was opened outside this machine (manual check-in, boot, an already running session)
+    public void onCheckedIn(int office, long nowMillis) {
+        if ((state != State.INSIDE && state != State.LEAVING) || office != officeId) {
+            moveTo(State.INSIDE, office, nowMillis);
+        }
+    }
+
+    // The session ended, or a check-in was refused
+    public void reset(long nowMillis) {
+        moveTo(State.OUTSIDE, -1, nowMillis);
+    }
+
+    private void moveTo(State next, int office, long nowMillis) {
+        state = next;
+        officeId = office;
+        since = nowMillis;
+    }
+
+    // "STATE|officeId|since", for SharedPreferences
+    public String encode() {
+        return state.name() + "|" + officeId + "|" + since;
+    }
+
+    public static TransitionDebouncer decode(String encoded, Config config) {
+        TransitionDebouncer debouncer = new TransitionDebouncer(config);
+        if (encoded == null) {
+            return debouncer;
+        }
+        String[] parts = encoded.split("\\|");
+        try {
+            debouncer.moveTo(State.valueOf(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            // Unreadable state: start from OUTSIDE, the next fence event rebuilds it
+            debouncer.reset(0);
+        }
+        return debouncer;
+    }
+
+    // Reduces a fix to a zone of the office: INNER only if the whole accuracy circle is inside the
+    // inner radius (or the shrunk outline), OUTER only if it is all beyond the outer one
+    public static Zone zoneOf(Office office, double lat, double lon, float accuracyMeters, Config config) {
+        float accuracy = Float.isNaN(accuracyMeters) ? 0 : Math.max(0, accuracyMeters);
+        OfficeFootprint outline = office.outline();
+        if (outline != null) {
+            if (outline.classify(lat, lon, accuracy + config.innerMarginMeters) == OfficeFootprint.Verdict.INSIDE) {
+                return Zone.INNER;
+            }
+            if (outline.classify(lat, lon, accuracy + config.outerMarginMeters) == OfficeFootprint.Verdict.OUTSIDE) {
+                return Zone.OUTER;
+            }
+            return Zone.BAND;
+        }
+        double distance = GeoMath.distanceMeters(office.latitude, office.longitude, lat, lon);
+        if (distance + accuracy <= office.radiusMeters - config.innerMarginMeters) {
+            return Zone.INNER;
+        }
+        if (distance - accuracy >= office.radiusMeters + config.outerMarginMeters) {
+            return Zone.OUTER;
+        }
+        return Zone.BAND;
+    }
+}
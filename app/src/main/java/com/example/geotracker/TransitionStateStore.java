@@ -0,0 +1,98 @@
+package com.example.geotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+// Process-wide owner of the TransitionDebouncer. Geofence broadcasts and the tracking service's
+// fixes arrive on different threads; every event goes through one lock and the resulting state
+// is written to SharedPreferences, so a process restart resumes mid-dwell or mid-grace.
+//
+// The thresholds can be tuned through the same preferences (innerMargin, outerMargin,
+// dwellMillis, graceMillis); they are read once per process.
+public class TransitionStateStore {
+    private static final String TAG = "TransitionState";
+    static final String PREFS_NAME = "TransitionState";
+    private static final String KEY_STATE = "state";
+
+    private static volatile TransitionStateStore INSTANCE;
+
+    private final SharedPreferences prefs;
+    private final TransitionDebouncer.Config config;
+    private final TransitionDebouncer debouncer;
+
+    private TransitionStateStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+        TransitionDebouncer.Config defaults = TransitionDebouncer.Config.DEFAULT;
+        this.config = new TransitionDebouncer.Config(
+                prefs.getFloat("innerMargin", defaults.innerMarginMeters),
+                prefs.getFloat("outerMargin", defaults.outerMarginMeters),
+                prefs.getLong("dwellMillis", defaults.dwellMillis),
+                prefs.getLong("graceMillis", defaults.graceMillis));
+        this.debouncer = TransitionDebouncer.decode(prefs.getString(KEY_STATE, null), config);
+    }
+
+    public static TransitionStateStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (TransitionStateStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TransitionStateStore(
+                            context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public TransitionDebouncer.Config getConfig() {
+        return config;
+    }
+
+    public synchronized TransitionDebouncer.State getState() {
+        return debouncer.getState();
+    }
+
+    public synchronized long nextDeadline() {
+        return debouncer.nextDeadline();
+    }
+
+    public synchronized TransitionDebouncer.Action onEnter(int officeId, long nowMillis) {
+        return save("enter", debouncer.onEnter(officeId, nowMillis));
+    }
+
+    public synchronized TransitionDebouncer.Action onDwell(int officeId, long nowMillis) {
+        return save("dwell", debouncer.onDwell(officeId, nowMillis));
+    }
+
+    public synchronized TransitionDebouncer.Action onExit(int officeId, long nowMillis) {
+        return save("exit", debouncer.onExit(officeId, nowMillis));
+    }
+
+    public synchronized TransitionDebouncer.Action onFix(int officeId, TransitionDebouncer.Zone zone, long nowMillis) {
+        return save("fix " + zone, debouncer.onFix(officeId, zone, nowMillis));
+    }
+
+    public synchronized TransitionDebouncer.Action tick(long nowMillis) {
+        return save("tick", debouncer.tick(nowMillis));
+    }
+
+    public synchronized void onCheckedIn(int officeId, long nowMillis) {
+        debouncer.onCheckedIn(officeId, nowMillis);
+        save("checked in", TransitionDebouncer.Action.NONE);
+    }
+
+    public synchronized void reset() {
+        debouncer.reset(System.currentTimeMillis());
+        save("reset", TransitionDebouncer.Action.NONE);
+    }
+
+    private TransitionDebouncer.Action save(String event, TransitionDebouncer.Action action) {
+        String encoded = debouncer.encode();
+        if (!encoded.equals(prefs.getString(KEY_STATE, null))) {
+            prefs.edit().putString(KEY_STATE, encoded).apply();
+            Log.d(TAG, event + " -> " + debouncer.getState() + " (office " + debouncer.getOfficeId() + ")"
+                    + (action != TransitionDebouncer.Action.NONE ? " " + action : ""));
+        }
+        return action;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.geotracker;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+@Entity(tableName = "weekly_rollups", primaryKeys = {"userId", "officeName", "weekStartDay"})
+public class WeeklyRollup {
+    // Empty when the session had no signed-in user
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String officeName = "";
+    // Monday of the local week, as epoch day
+    public long weekStartDay;
+    public long workedMillis;
+    public int sessionCount;
+    public long firstInMillis;
+    public long lastOutMillis;
+}
@@ -8,39 +8,38 @@ import android.net.wifi.WifiManager;
 import android.util.Log;
 import androidx.core.app.ActivityCompat;
 
+// Office Wi-Fi means an access point listed for some office in office_access_points. The BSSID
+// alone identifies it: SSIDs are shared across sites and trivially spoofed. Lookups go through
+// OfficeRegistry's BssidIndex; the first one may load it from Room, so not on the main thread.
 public class WifiValidator {
     private static final String TAG = "WifiValidator";
-    private static final String TARGET_SSID = "Poco";
-    private static final String TARGET_BSSID = "5e:0f:49:e5:60:6f";
 
-    public static boolean isConnectedToOfficeWifi(Context context) {
+    // Office whose access point the device is connected to, or BssidIndex.NO_OFFICE
+    public static int connectedOffice(Context context) {
         if (!hasWifiPermissions(context)) {
             Log.w(TAG, "Missing WiFi permissions");
-            return false;
+            return BssidIndex.NO_OFFICE;
         }
 
         WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
-        if (wifiManager == null) return false;
+        if (wifiManager == null) return BssidIndex.NO_OFFICE;
 
-        WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-        if (wifiInfo == null) return false;
-
-        String currentSSID = sanitizeSsid(wifiInfo.getSSID());
-        String currentBSSID = wifiInfo.getBSSID();
-
-        Log.d(TAG, "SSID: " + currentSSID + ", BSSID: " + currentBSSID);
+        return officeFor(context, wifiManager.getConnectionInfo());
+    }
 
-        return TARGET_SSID.equals(currentSSID) &&
-                TARGET_BSSID.equalsIgnoreCase(currentBSSID);
+    // The check itself, for callers that already have the connection's WifiInfo
+    public static int officeFor(Context context, WifiInfo wifiInfo) {
+        return wifiInfo != null ? officeForBssid(context, wifiInfo.getBSSID()) : BssidIndex.NO_OFFICE;
     }
 
-    private static String sanitizeSsid(String ssid) {
-        // Remove surrounding quotes if present
-        return ssid.replaceAll("^\"|\"$", "");
+    // Which office the access point belongs to, or BssidIndex.NO_OFFICE (also for a redacted or
+    // malformed BSSID)
+    public static int officeForBssid(Context context, String bssid) {
+        return OfficeRegistry.getInstance(context).officeForBssid(BssidIndex.parse(bssid));
     }
 
     private static boolean hasWifiPermissions(Context context) {
         return ActivityCompat.checkSelfPermission(context,
                 Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
     }
-}
\ No newline at end of file
+}
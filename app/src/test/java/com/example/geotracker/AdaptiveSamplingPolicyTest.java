@@ -0,0 +1,98 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSamplingPolicyTest {
+    private static final double OFFICE_LAT = 28.720126;
+    private static final double OFFICE_LON = 77.0822006;
+    private static final double RADIUS = 150;
+    private static final double METERS_PER_DEGREE_LAT = 111_195;
+    private static final long START = 1_700_000_000_000L;
+
+    private final AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(OFFICE_LAT, OFFICE_LON, RADIUS);
+    private final Random random = new Random(7);
+    private long now = START;
+    private double north;
+
+    @Test
+    public void deskNearCenter_stepsDownToLowPower() {
+        assertEquals(AdaptiveSamplingPolicy.Mode.HIGH, sitAt(0, 60_000));
+        assertEquals(AdaptiveSamplingPolicy.Mode.BALANCED, sitAt(0, 3 * 60_000));
+        assertEquals(AdaptiveSamplingPolicy.Mode.LOW, sitAt(0, 15 * 60_000));
+    }
+
+    @Test
+    public void deskNearEdge_staysAtHighAccuracy() {
+        assertEquals(AdaptiveSamplingPolicy.Mode.HIGH, sitAt(120, 30 * 60_000));
+    }
+
+    @Test
+    public void deskHalfwayOut_neverUsesModeThatCouldSleepThroughExit() {
+        // 75 m from the edge: balanced (45 m per interval) fits, low (90 m) does not
+        assertEquals(AdaptiveSamplingPolicy.Mode.BALANCED, sitAt(75, 30 * 60_000));
+    }
+
+    @Test
+    public void walkingAfterLowPower_stepsStraightBackToHigh() {
+        assertEquals(AdaptiveSamplingPolicy.Mode.LOW, sitAt(0, 15 * 60_000));
+
+        now += 60_000;
+        AdaptiveSamplingPolicy.Mode mode = policy.onFix(latAt(40), OFFICE_LON, 15, 1.4f, now);
+
+        assertEquals(AdaptiveSamplingPolicy.Mode.HIGH, mode);
+    }
+
+    @Test
+    public void coarseFixNearEdgeInLowPower_firstAsksForBetterFix() {
+        assertEquals(AdaptiveSamplingPolicy.Mode.LOW, sitAt(0, 15 * 60_000));
+
+        now += 60_000;
+        AdaptiveSamplingPolicy.Mode mode = policy.onFix(latAt(5), OFFICE_LON, 400, Float.NaN, now);
+
+        assertEquals(AdaptiveSamplingPolicy.Mode.BALANCED, mode);
+    }
+
+    @Test
+    public void workday_spendsMostOfItOffHighAccuracy() {
+        sitAt(0, 4 * 3_600_000L);
+        walkTo(100, 5 * 60_000);
+        sitAt(100, 60 * 60_000);
+        walkTo(0, 5 * 60_000);
+        sitAt(0, 3 * 3_600_000L);
+
+        long high = policy.timeInModeMillis(AdaptiveSamplingPolicy.Mode.HIGH, now);
+        long total = now - START;
+        assertTrue("high accuracy for " + policy.describeDutyCycle(now), high < total / 5);
+    }
+
+    // Stationary fixes with wifi-grade jitter, delivered at the current mode's interval
+    private AdaptiveSamplingPolicy.Mode sitAt(double metersNorth, long durationMillis) {
+        north = metersNorth;
+        long end = now + durationMillis;
+        while (now < end) {
+            now += policy.getMode().intervalMillis;
+            double jitter = random.nextGaussian() * 5;
+            policy.onFix(latAt(metersNorth + jitter), OFFICE_LON, 15, 0.1f, now);
+        }
+        return policy.getMode();
+    }
+
+    private void walkTo(double metersNorth, long durationMillis) {
+        long start = now;
+        double origin = north;
+        while (now < start + durationMillis) {
+            now += policy.getMode().intervalMillis;
+            double fraction = Math.min(1, (now - start) / (double) durationMillis);
+            north = origin + (metersNorth - origin) * fraction;
+            policy.onFix(latAt(north), OFFICE_LON, 8, 1.3f, now);
+        }
+    }
+
+    private static double latAt(double metersNorth) {
+        return OFFICE_LAT + metersNorth / METERS_PER_DEGREE_LAT;
+    }
+}
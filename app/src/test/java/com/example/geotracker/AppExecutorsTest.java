@@ -0,0 +1,81 @@
+package com.example.geotracker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AppExecutorsTest {
+
+    @After
+    public void tearDown() {
+        AppExecutors.setInstanceForTesting(null);
+    }
+
+    @Test
+    public void direct_runsEveryLaneOnTheCallingThreadWhenInstalled() {
+        AppExecutors.setInstanceForTesting(AppExecutors.direct());
+        AppExecutors executors = AppExecutors.getInstance();
+        List<Thread> threads = new ArrayList<>();
+
+        executors.diskWrite().execute(() -> threads.add(Thread.currentThread()));
+        executors.io().execute(() -> threads.add(Thread.currentThread()));
+        executors.io().execute(() -> threads.add(Thread.currentThread()));
+        executors.mainThread().execute(() -> threads.add(Thread.currentThread()));
+
+        // Each task has run by the time execute() returns
+        assertEquals(4, threads.size());
+        for (Thread thread : threads) {
+            assertSame(Thread.currentThread(), thread);
+        }
+        String metrics = executors.dumpMetrics();
+        assertTrue(metrics, metrics.contains("db-write: queued=0 maxQueued=0 done=1 overflowed=0 "));
+        assertTrue(metrics, metrics.contains("io: queued=0 maxQueued=0 done=2 overflowed=0 "));
+    }
+
+    // With the direct lanes, code that hands its work to the shared executors can be tested
+    // without waiting: here a whole engine event, store write and effects included
+    @Test
+    public void direct_letsAnEngineOnTheDiskWriteLaneCompleteInsideSubmit() {
+        AppExecutors.setInstanceForTesting(AppExecutors.direct());
+        List<AttendanceEngine.Outcome> outcomes = new ArrayList<>();
+        AttendanceEngine engine = new AttendanceEngine(new OneSessionStore(),
+                AppExecutors.getInstance().diskWrite(), outcomes::add);
+
+        engine.submit(AttendanceEngine.Event.enter(1, "Headquarters", "u", 1_700_000_000_000L));
+
+        assertEquals(1, outcomes.size());
+        assertNotNull(outcomes.get(0).opened);
+    }
+
+    private static class OneSessionStore implements AttendanceStore {
+        private AttendanceRecord active;
+
+        @Override
+        public AttendanceRecord getActiveSession() {
+            return active;
+        }
+
+        @Override
+        public AttendanceRecord startSession(int officeId, String officeName, String userId, long checkInMillis) {
+            if (active != null) {
+                return null;
+            }
+            active = new AttendanceRecord(officeName, checkInMillis);
+            return active;
+        }
+
+        @Override
+        public AttendanceRecord completeActiveSession(long checkOutMillis) {
+            AttendanceRecord record = active;
+            if (record != null) {
+                record.complete(checkOutMillis);
+                active = null;
+            }
+            return record;
+        }
+    }
+}
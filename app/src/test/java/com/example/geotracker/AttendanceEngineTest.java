@@ -0,0 +1,313 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class AttendanceEngineTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final int HQ = 1;
+    private static final int ANNEX = 2;
+
+    private final MemoryStore store = new MemoryStore();
+    private final List<AttendanceEngine.Outcome> outcomes = new ArrayList<>();
+    private final AttendanceEngine engine = new AttendanceEngine(store, Runnable::run, outcomes::add);
+
+    @Test
+    public void enter_opensOnceAndStartsTracking() {
+        AttendanceEngine.Outcome first = engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+        AttendanceEngine.Outcome second = engine.process(AttendanceEngine.Event.manualCheckIn(HQ, "Headquarters", "u", START + 1));
+
+        assertNotNull(first.opened);
+        assertEquals(List.of(AttendanceEngine.EffectType.SAVE_ACTIVE_OFFICE, AttendanceEngine.EffectType.START_TRACKING,
+                AttendanceEngine.EffectType.NOTIFY), types(first));
+        assertFalse(second.changed());
+        assertTrue(second.effects.isEmpty());
+        assertEquals(1, store.records.size());
+    }
+
+    @Test
+    public void manualCheckIn_marksTheDebouncerCheckedIn() {
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.manualCheckIn(HQ, "Headquarters", "u", START));
+
+        assertTrue(types(outcome).contains(AttendanceEngine.EffectType.MARK_CHECKED_IN));
+        assertEquals("Manual Check-In", outcome.effects.get(outcome.effects.size() - 1).title);
+    }
+
+    @Test
+    public void exitFromAnotherOffice_isIgnored() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.exit(ANNEX, "Annex", START + 60_000));
+
+        assertFalse(outcome.changed());
+        assertNotNull(store.getActiveSession());
+    }
+
+    @Test
+    public void exitFromAnotherOfficeWithTheSameName_isIgnored() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.exit(ANNEX, "Headquarters", START + 60_000));
+
+        assertFalse(outcome.changed());
+        assertNotNull(store.getActiveSession());
+    }
+
+    @Test
+    public void exitFromAnOfficeThatCouldNotBeLookedUp_isIgnored() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.exit(-1, null, START + 60_000));
+
+        assertFalse(outcome.changed());
+        assertNotNull(store.getActiveSession());
+    }
+
+    @Test
+    public void exitFromASessionRecordedWithoutAnOfficeId_fallsBackToTheName() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+        store.getActiveSession().officeId = null;
+
+        assertFalse(engine.process(AttendanceEngine.Event.exit(ANNEX, "Annex", START + 60_000)).changed());
+        assertNotNull(engine.process(AttendanceEngine.Event.exit(HQ, "Headquarters", START + 120_000)).closed);
+    }
+
+    @Test
+    public void exit_closesAndSyncs() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.exit(HQ, "Headquarters", START + 3_600_000));
+
+        assertEquals(3_600_000, outcome.closed.durationMillis);
+        assertEquals(List.of(AttendanceEngine.EffectType.STOP_TRACKING, AttendanceEngine.EffectType.NOTIFY,
+                AttendanceEngine.EffectType.WARN_IF_ON_OFFICE_WIFI, AttendanceEngine.EffectType.REQUEST_SYNC), types(outcome));
+        assertNull(store.getActiveSession());
+    }
+
+    @Test
+    public void exitStampedBeforeTheCheckIn_closesAtTheCheckIn() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.exit(HQ, "Headquarters", START - 5_000));
+
+        assertEquals(START, (long) outcome.closed.checkOutMillis);
+        assertEquals(0, outcome.closed.durationMillis);
+    }
+
+    @Test
+    public void bootInside_resumesASessionOrWatchesForANewOne() {
+        AttendanceEngine.Outcome noSession = engine.process(AttendanceEngine.Event.bootInside(HQ, START));
+        assertEquals(List.of(AttendanceEngine.EffectType.WATCH_OFFICE), types(noSession));
+        assertEquals(HQ, noSession.effects.get(0).officeId);
+
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+        AttendanceEngine.Outcome resumed = engine.process(AttendanceEngine.Event.bootInside(HQ, START + 1));
+        assertEquals(List.of(AttendanceEngine.EffectType.START_TRACKING, AttendanceEngine.EffectType.NOTIFY), types(resumed));
+        assertFalse(resumed.changed());
+    }
+
+    @Test
+    public void bootOutsideAndPermissionLoss_endTheSessionAndResetTransitions() {
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+        AttendanceEngine.Outcome bootOutside = engine.process(AttendanceEngine.Event.bootOutside(START + 60_000));
+        engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START + 120_000));
+        AttendanceEngine.Outcome permissionLost = engine.process(AttendanceEngine.Event.permissionLost(START + 180_000));
+
+        for (AttendanceEngine.Outcome outcome : List.of(bootOutside, permissionLost)) {
+            assertNotNull(outcome.closed);
+            assertTrue(types(outcome).contains(AttendanceEngine.EffectType.RESET_TRANSITIONS));
+            assertTrue(types(outcome).contains(AttendanceEngine.EffectType.STOP_TRACKING));
+        }
+        assertFalse(engine.process(AttendanceEngine.Event.permissionLost(START + 240_000)).changed());
+    }
+
+    @Test
+    public void storeFailure_isReportedWithNoEffects() {
+        store.failNext = true;
+
+        AttendanceEngine.Outcome outcome = engine.process(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+
+        assertNotNull(outcome.error);
+        assertTrue(outcome.effects.isEmpty());
+        assertNull(store.getActiveSession());
+    }
+
+    @Test
+    public void submit_handsEachOutcomeToTheSink() {
+        engine.submit(AttendanceEngine.Event.enter(HQ, "Headquarters", "u", START));
+        engine.submit(AttendanceEngine.Event.exit(HQ, "Headquarters", START + 1));
+
+        assertEquals(2, outcomes.size());
+        assertNotNull(outcomes.get(0).opened);
+        assertNotNull(outcomes.get(1).closed);
+    }
+
+    // Every source at once, from several threads, as after a reboot in a car park next to two
+    // offices: the queue must never let two sessions be open or an effect go missing
+    @Test
+    public void eventStorm_keepsOneSessionAndMatchingEffects() throws Exception {
+        int threads = 8;
+        int perThread = 25_000;
+        ExecutorService queue = Executors.newSingleThreadExecutor();
+        StormSink sink = new StormSink();
+        AttendanceEngine stormEngine = new AttendanceEngine(store, queue, sink);
+        AtomicLong clock = new AtomicLong(START);
+        CountDownLatch go = new CountDownLatch(1);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            Thread producer = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    stormEngine.submit(randomEvent(random, clock.addAndGet(1_000)));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        long began = System.nanoTime();
+        go.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(60, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        int events = threads * perThread;
+        Benchmark.report("event storm: %d events in %.2f s (%.0f events/s), %d sessions%n",
+                events, seconds, events / seconds, sink.opened);
+        assertEquals(events, sink.outcomes);
+        assertEquals(0, sink.violations);
+        assertEquals(1, store.maxOpen.get());
+        assertTrue(sink.opened > 100);
+        assertEquals(sink.opened, sink.startEffects);
+        assertEquals(sink.closed, sink.stopEffects);
+        assertTrue(sink.opened - sink.closed == 0 || sink.opened - sink.closed == 1);
+        for (AttendanceRecord record : store.records) {
+            if (record.completed) {
+                assertTrue(record.checkOutMillis >= record.checkInMillis);
+                assertTrue(record.durationMillis >= 0);
+            }
+        }
+    }
+
+    private static AttendanceEngine.Event randomEvent(Random random, long time) {
+        int office = random.nextBoolean() ? HQ : ANNEX;
+        String name = office == HQ ? "Headquarters" : "Annex";
+        switch (random.nextInt(6)) {
+            case 0:
+                return AttendanceEngine.Event.enter(office, name, "u", time);
+            case 1:
+                return AttendanceEngine.Event.manualCheckIn(office, name, "u", time);
+            case 2:
+                return AttendanceEngine.Event.exit(office, name, time);
+            case 3:
+                return AttendanceEngine.Event.bootInside(office, time);
+            case 4:
+                return AttendanceEngine.Event.bootOutside(time);
+            default:
+                return AttendanceEngine.Event.permissionLost(time);
+        }
+    }
+
+    private static List<AttendanceEngine.EffectType> types(AttendanceEngine.Outcome outcome) {
+        List<AttendanceEngine.EffectType> types = new ArrayList<>();
+        for (AttendanceEngine.Effect effect : outcome.effects) {
+            types.add(effect.type);
+        }
+        return types;
+    }
+
+    // Only ever called from the engine's queue thread, so plain fields are enough
+    private static class StormSink implements AttendanceEngine.EffectSink {
+        int outcomes;
+        int opened;
+        int closed;
+        int startEffects;
+        int stopEffects;
+        int violations;
+
+        @Override
+        public void apply(AttendanceEngine.Outcome outcome) {
+            outcomes++;
+            if (outcome.opened != null) opened++;
+            if (outcome.closed != null) closed++;
+            if (outcome.opened != null && outcome.closed != null) violations++;
+            for (AttendanceEngine.Effect effect : outcome.effects) {
+                // A resumed session restarts tracking without opening anything
+                if (effect.type == AttendanceEngine.EffectType.START_TRACKING && outcome.opened != null) startEffects++;
+                if (effect.type == AttendanceEngine.EffectType.STOP_TRACKING) stopEffects++;
+            }
+            if (outcome.event.type == AttendanceEngine.EventType.BOOT_INSIDE && outcome.changed()) violations++;
+        }
+    }
+
+    // SessionRepository without Room: same contract, one lock per call
+    // Deliberately unguarded check-then-act, like a store with no locking of its own: it only
+    // keeps one session open if the engine's queue hands it one event at a time
+    private static class MemoryStore implements AttendanceStore {
+        final List<AttendanceRecord> records = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger nextId = new AtomicInteger(1);
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger maxOpen = new AtomicInteger(1);
+        volatile AttendanceRecord active;
+        volatile boolean failNext;
+
+        @Override
+        public AttendanceRecord getActiveSession() {
+            return active;
+        }
+
+        @Override
+        public AttendanceRecord startSession(int officeId, String officeName, String userId, long checkInMillis) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("disk full");
+            }
+            if (active != null) {
+                return null;
+            }
+            // Widens the window between the check and the write for any overlapping caller
+            Thread.yield();
+            AttendanceRecord record = new AttendanceRecord(officeName, checkInMillis);
+            record.officeId = officeId >= 0 ? officeId : null;
+            record.userId = userId;
+            record.id = nextId.getAndIncrement();
+            records.add(record);
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            active = record;
+            return record;
+        }
+
+        @Override
+        public AttendanceRecord completeActiveSession(long checkOutMillis) {
+            AttendanceRecord record = active;
+            if (record == null) {
+                return null;
+            }
+            Thread.yield();
+            record.complete(checkOutMillis);
+            active = null;
+            open.decrementAndGet();
+            return record;
+        }
+    }
+}
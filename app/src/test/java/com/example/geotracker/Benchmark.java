@@ -0,0 +1,17 @@
+package com.example.geotracker;
+
+// Timing output for the tests that double as benchmarks. Quiet in a normal test run; enabled
+// with ./gradlew testDebugUnitTest -Pbenchmark. Timings are never asserted: they depend on the
+// machine.
+final class Benchmark {
+    static final boolean ENABLED = Boolean.getBoolean("benchmark");
+
+    private Benchmark() {
+    }
+
+    static void report(String format, Object... args) {
+        if (ENABLED) {
+            System.out.printf(format, args);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BootRecoveryPlannerTest {
+    private static final long CHECK_IN = 1_700_000_000_000L;
+    private static final long NOW = CHECK_IN + 9 * 3_600_000L;
+    private static final int HQ = 1;
+
+    @Test
+    public void noSession_needsNothing() {
+        assertEquals(BootRecoveryPlanner.Action.NONE, BootRecoveryPlanner.onBoot(false, true, NOW).action);
+        assertEquals(BootRecoveryPlanner.Action.NONE, BootRecoveryPlanner.onBoot(false, false, NOW).action);
+    }
+
+    @Test
+    public void sessionWithoutPermission_ends() {
+        assertEquals(BootRecoveryPlanner.Action.PERMISSION_LOST, BootRecoveryPlanner.onBoot(true, false, NOW).action);
+    }
+
+    @Test
+    public void sessionWithPermission_waitsForAFix() {
+        assertEquals(BootRecoveryPlanner.Action.AWAIT_FIX, BootRecoveryPlanner.onBoot(true, true, NOW).action);
+    }
+
+    @Test
+    public void fixInsideAnOffice_resumesThere() {
+        BootRecoveryPlanner.Decision decision = BootRecoveryPlanner.onFix(sessionSnapshot(), HQ, NOW);
+
+        assertEquals(BootRecoveryPlanner.Action.RESUME, decision.action);
+        assertEquals(HQ, decision.officeId);
+    }
+
+    @Test
+    public void fixOutside_checksOutAtTheLastFixOfTheSession() {
+        long lastFix = CHECK_IN + 8 * 3_600_000L;
+        BootSnapshot snapshot = sessionSnapshot().withFix(28.72, 77.08, 12, lastFix);
+
+        BootRecoveryPlanner.Decision decision = BootRecoveryPlanner.onFix(snapshot, -1, NOW);
+
+        assertEquals(BootRecoveryPlanner.Action.CHECK_OUT, decision.action);
+        assertEquals(lastFix, decision.timeMillis);
+    }
+
+    @Test
+    public void fixOutside_withoutASessionFix_checksOutNow() {
+        // Last fix predates the session, e.g. taken on the way in before check-in
+        BootSnapshot beforeSession = BootSnapshot.EMPTY.withFix(28.72, 77.08, 12, CHECK_IN - 60_000).withSession(HQ, CHECK_IN);
+        // Clock went backwards across the reboot
+        BootSnapshot fromTheFuture = sessionSnapshot().withFix(28.72, 77.08, 12, NOW + 60_000);
+
+        assertEquals(NOW, BootRecoveryPlanner.onFix(beforeSession, -1, NOW).timeMillis);
+        assertEquals(NOW, BootRecoveryPlanner.onFix(fromTheFuture, -1, NOW).timeMillis);
+        assertEquals(NOW, BootRecoveryPlanner.onFix(BootSnapshot.EMPTY, -1, NOW).timeMillis);
+    }
+
+    @Test
+    public void deadline_resumesAtTheSnapshotOffice() {
+        BootRecoveryPlanner.Decision decision = BootRecoveryPlanner.onDeadline(sessionSnapshot(), NOW);
+
+        assertEquals(BootRecoveryPlanner.Action.RESUME, decision.action);
+        assertEquals(HQ, decision.officeId);
+    }
+
+    @Test
+    public void snapshot_roundTripsAndSurvivesGarbage() {
+        BootSnapshot snapshot = sessionSnapshot().withFix(28.720126, 77.0822006, 8.5f, NOW - 1_000);
+
+        BootSnapshot decoded = BootSnapshot.decode(snapshot.encode());
+
+        assertEquals(snapshot.encode(), decoded.encode());
+        assertEquals(HQ, decoded.sessionOfficeId);
+        assertEquals(28.720126, decoded.fixLatitude, 0);
+        assertTrue(decoded.hasFixDuringSession());
+        assertFalse(BootSnapshot.decode(BootSnapshot.EMPTY.encode()).hasSession());
+        assertFalse(BootSnapshot.decode(BootSnapshot.EMPTY.encode()).hasFix());
+        assertSame(BootSnapshot.EMPTY, BootSnapshot.decode("1|x"));
+        assertSame(BootSnapshot.EMPTY, BootSnapshot.decode(null));
+    }
+
+    @Test
+    public void withoutSession_keepsTheLastFix() {
+        BootSnapshot snapshot = sessionSnapshot().withFix(28.72, 77.08, 12, NOW).withoutSession();
+
+        assertFalse(snapshot.hasSession());
+        assertTrue(snapshot.hasFix());
+        assertFalse(snapshot.hasFixDuringSession());
+    }
+
+    private static BootSnapshot sessionSnapshot() {
+        return BootSnapshot.EMPTY.withSession(HQ, CHECK_IN);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BssidIndexTest {
+    private static final String HQ_BSSID = "5e:0f:49:e5:60:6f";
+
+    @Test
+    public void parse_acceptsTheFormsAndroidReports() {
+        long packed = 0x5e0f49e5606fL;
+
+        assertEquals(packed, BssidIndex.parse(HQ_BSSID));
+        assertEquals(packed, BssidIndex.parse("5E:0F:49:E5:60:6F"));
+        assertEquals(packed, BssidIndex.parse("5e-0f-49-e5-60-6f"));
+        assertEquals(packed, BssidIndex.parse("\"5e:0f:49:e5:60:6f\""));
+        assertEquals(0, BssidIndex.parse("00:00:00:00:00:00"));
+        assertEquals(0xFFFF_FFFF_FFFFL, BssidIndex.parse("ff:ff:ff:ff:ff:ff"));
+    }
+
+    @Test
+    public void parse_rejectsAnythingElse() {
+        assertEquals(-1, BssidIndex.parse(null));
+        assertEquals(-1, BssidIndex.parse(""));
+        assertEquals(-1, BssidIndex.parse("5e:0f:49:e5:60"));
+        assertEquals(-1, BssidIndex.parse("5e:0f:49:e5:60:6f:00"));
+        assertEquals(-1, BssidIndex.parse("5e:0f:49:e5:60:6g"));
+        assertEquals(-1, BssidIndex.parse("5e.0f.49.e5.60.6f"));
+        assertEquals(-1, BssidIndex.parse("<unknown ssid>"));
+        // Full-width digits are digits to Character.digit, not to a MAC address
+        assertEquals(-1, BssidIndex.parse("\uff15e:0f:49:e5:60:6f"));
+    }
+
+    @Test
+    public void format_roundTrips() {
+        assertEquals(HQ_BSSID, BssidIndex.format(BssidIndex.parse(HQ_BSSID)));
+        assertEquals("00:00:00:00:00:01", BssidIndex.format(1));
+    }
+
+    @Test
+    public void officeFor_findsMappedAccessPointsOnly() {
+        BssidIndex index = new BssidIndex();
+        index.put(BssidIndex.parse(HQ_BSSID), 1);
+        index.put(0, 7);
+
+        assertEquals(1, index.officeFor(HQ_BSSID));
+        assertEquals(1, index.officeFor("5E-0F-49-E5-60-6F"));
+        assertEquals(7, index.officeFor(0));
+        // What Android reports when location permission is missing
+        assertEquals(BssidIndex.NO_OFFICE, index.officeFor("02:00:00:00:00:00"));
+        assertEquals(BssidIndex.NO_OFFICE, index.officeFor((String) null));
+        assertEquals(BssidIndex.NO_OFFICE, index.officeFor(-1));
+    }
+
+    @Test
+    public void put_replacesAnEarlierMapping() {
+        BssidIndex index = new BssidIndex();
+        long bssid = BssidIndex.parse(HQ_BSSID);
+        index.put(bssid, 1);
+        index.put(bssid, 2);
+
+        assertEquals(1, index.size());
+        assertEquals(2, index.officeFor(bssid));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_rejectsValuesWiderThan48Bits() {
+        new BssidIndex().put(1L << 48, 1);
+    }
+
+    // A few hundred sites with dozens of access points each, all from one vendor prefix
+    @Test
+    public void manySites_growAndStayExact() {
+        Random random = new Random(25);
+        Map<Long, Integer> expected = new HashMap<>();
+        BssidIndex index = new BssidIndex();
+        for (int office = 1; office <= 400; office++) {
+            for (int ap = 0; ap < 40; ap++) {
+                long bssid = 0x5e0f49_000000L | random.nextInt(1 << 24);
+                index.put(bssid, office);
+                expected.put(bssid, office);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), index.officeFor(entry.getKey()));
+        }
+        int misses = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long bssid = 0xa4c3f0_000000L | random.nextInt(1 << 24);
+            if (index.officeFor(bssid) == BssidIndex.NO_OFFICE) misses++;
+        }
+        assertEquals(10_000, misses);
+    }
+
+    @Test
+    public void manyLookups_findEveryIndexedBssid() {
+        BssidIndex index = new BssidIndex();
+        String[] seen = new String[1024];
+        Random random = new Random(3);
+        for (int i = 0; i < seen.length; i++) {
+            long bssid = random.nextLong() & 0xFFFF_FFFF_FFFFL;
+            if (i % 2 == 0) index.put(bssid, i);
+            seen[i] = BssidIndex.format(bssid).toUpperCase();
+        }
+
+        int hits = 0;
+        long began = System.nanoTime();
+        int lookups = 2_000_000;
+        for (int i = 0; i < lookups; i++) {
+            if (index.officeFor(seen[i & 1023]) != BssidIndex.NO_OFFICE) hits++;
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        Benchmark.report("bssid lookups: %.0f per second (parse + probe)%n", lookups / seconds);
+        assertEquals(lookups / 2, hits);
+    }
+}
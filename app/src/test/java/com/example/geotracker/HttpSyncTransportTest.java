@@ -0,0 +1,163 @@
+package com.example.geotracker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class HttpSyncTransportTest {
+    private static final String INSTALLATION_ID = "test-device";
+    private static final long START = 1_700_000_000_000L;
+
+    private MockSyncServer server;
+    private HttpSyncTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockSyncServer();
+        transport = new HttpSyncTransport(server.endpoint(), INSTALLATION_ID, null);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void upload_storesEveryRecordOfTheBatch() throws Exception {
+        long bytes = transport.upload(batch(0, 120, 0));
+
+        assertEquals(120, server.documentIds().size());
+        assertTrue(server.documentIds().contains(documentId(7)));
+        assertTrue(bytes > 0);
+    }
+
+    @Test
+    public void upload_sameRecordsTwice_overwritesInsteadOfDuplicating() throws Exception {
+        transport.upload(batch(0, 50, 0));
+        transport.upload(batch(25, 50, 0));
+
+        assertEquals(75, server.documentIds().size());
+    }
+
+    @Test
+    public void upload_serverError_isReportedAsUnreachable() throws Exception {
+        server.failNext(1, 503);
+
+        try {
+            transport.upload(batch(0, 10, 0));
+            fail("expected SyncTransportException");
+        } catch (SyncTransportException e) {
+            assertTrue(e.unreachable);
+            assertEquals("http.503", e.errorType);
+        }
+        assertTrue(server.documentIds().isEmpty());
+
+        transport.upload(batch(0, 10, 0));
+        assertEquals(10, server.documentIds().size());
+    }
+
+    @Test
+    public void upload_rejectedBatch_isNotReportedAsUnreachable() throws Exception {
+        server.failNext(1, 400);
+
+        try {
+            transport.upload(batch(0, 10, 0));
+            fail("expected SyncTransportException");
+        } catch (SyncTransportException e) {
+            assertFalse(e.unreachable);
+        }
+    }
+
+    @Test
+    public void upload_noServer_isReportedAsUnreachable() throws Exception {
+        URL endpoint = server.endpoint();
+        server.close();
+        HttpSyncTransport offline = new HttpSyncTransport(endpoint, INSTALLATION_ID, null);
+
+        try {
+            offline.upload(batch(0, 1, 0));
+            fail("expected SyncTransportException");
+        } catch (SyncTransportException e) {
+            assertTrue(e.unreachable);
+        }
+    }
+
+    @Test
+    public void toJson_escapesStrings() {
+        AttendanceRecord record = record(1, 0);
+        record.officeName = "HQ \"North\"\n";
+
+        String json = transport.toJson(Map.of("a\\b", record));
+
+        assertTrue(json.contains("\"id\":\"a\\\\b\""));
+        assertTrue(json.contains("\"officeName\":\"HQ \\\"North\\\"\\n\""));
+    }
+
+    // Not a pass/fail test: prints the numbers used to compare transports offline (-Pbenchmark)
+    @Test
+    public void benchmark_reportsThroughputBytesAndLatency() throws Exception {
+        assumeTrue(Benchmark.ENABLED);
+        int batches = 40;
+        int batchSize = FirestoreSyncHelper.MAX_BATCH_SIZE;
+        long[] latencies = new long[batches];
+        long totalBytes = 0;
+
+        transport.upload(batch(0, batchSize, 300)); // warm up the connection and JIT
+        long started = System.nanoTime();
+        for (int i = 0; i < batches; i++) {
+            Map<String, AttendanceRecord> batch = batch(i * batchSize, batchSize, 300);
+            long batchStart = System.nanoTime();
+            totalBytes += transport.upload(batch);
+            latencies[i] = System.nanoTime() - batchStart;
+        }
+        long elapsed = System.nanoTime() - started;
+
+        int records = batches * batchSize;
+        Arrays.sort(latencies);
+        Benchmark.report("http transport: %.0f records/s, %.1f bytes/record, batch p50 %.1f ms, p99 %.1f ms%n",
+                records / (elapsed / 1e9),
+                totalBytes / (double) records,
+                latencies[batches / 2] / 1e6,
+                latencies[(int) Math.ceil(batches * 0.99) - 1] / 1e6);
+        assertEquals(records, server.documentIds().size());
+    }
+
+    private static Map<String, AttendanceRecord> batch(int firstId, int count, int trackPoints) {
+        Map<String, AttendanceRecord> batch = new LinkedHashMap<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            batch.put(documentId(id), record(id, trackPoints));
+        }
+        return batch;
+    }
+
+    private static AttendanceRecord record(int id, int trackPoints) {
+        AttendanceRecord record = new AttendanceRecord("Headquarters", START + id * 60_000L);
+        record.id = id;
+        record.userId = "user-1";
+        record.complete(record.checkInMillis + 8 * 3_600_000L);
+        if (trackPoints > 0) {
+            List<TrackCodec.TrackPoint> points = new ArrayList<>();
+            for (int i = 0; i < trackPoints; i++) {
+                points.add(new TrackCodec.TrackPoint(28.720126 + i * 1e-5, 77.0822006 + (i % 7) * 1e-5,
+                        record.checkInMillis + i * 30_000L));
+            }
+            record.track = TrackCodec.encode(points);
+            record.trackPointCount = trackPoints;
+        }
+        return record;
+    }
+
+    private static String documentId(int id) {
+        return "user-1_" + INSTALLATION_ID + "_" + id;
+    }
+}
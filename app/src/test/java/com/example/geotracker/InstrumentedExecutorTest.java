@@ -0,0 +1,68 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedExecutorTest {
+
+    @Test
+    public void execute_countsCompletedTasks() throws Exception {
+        InstrumentedExecutor lane = new InstrumentedExecutor("test", 2, 16);
+        CountDownLatch done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            lane.execute(done::countDown);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitFor(() -> lane.completedCount() == 10);
+        assertEquals(0, lane.overflowCount());
+        assertTrue(lane.describe(), lane.describe().startsWith("test: queued=0 "));
+        assertTrue(lane.describe(), lane.describe().contains(" done=10 overflowed=0 "));
+    }
+
+    // A full queue must not run the task on the submitting thread, which may be the main thread
+    @Test
+    public void fullQueue_overflowsOntoAnotherThreadNeverTheCaller() throws Exception {
+        InstrumentedExecutor lane = new InstrumentedExecutor("test", 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Runnable task = () -> {
+            threads.add(Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        };
+
+        // One running, two queued, three turned away by the queue
+        for (int i = 0; i < 6; i++) {
+            lane.execute(task);
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals(3, lane.overflowCount());
+        waitFor(() -> lane.completedCount() == 6);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        // Completion is recorded just after the task body returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
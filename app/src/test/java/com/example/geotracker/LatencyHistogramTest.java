@@ -0,0 +1,58 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentile_returnsBucketUpperBoundCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(80);
+        }
+        histogram.record(4_000);
+        histogram.record(42_000);
+
+        assertEquals(100, histogram.count());
+        assertEquals(100, histogram.percentile(0.5));
+        assertEquals(5_000, histogram.percentile(0.99));
+        assertEquals(42_000, histogram.percentile(1.0));
+        assertEquals(42_000, histogram.max());
+    }
+
+    @Test
+    public void encodeDecode_roundTrips() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1_500);
+        histogram.record(7_200_000);
+
+        LatencyHistogram decoded = LatencyHistogram.decode(histogram.encode());
+
+        assertEquals(histogram, decoded);
+        assertEquals(new LatencyHistogram(), LatencyHistogram.decode(new LatencyHistogram().encode()));
+        assertEquals(new LatencyHistogram(), LatencyHistogram.decode(null));
+    }
+
+    @Test
+    public void add_mergesCountsAndMax() {
+        LatencyHistogram a = new LatencyHistogram();
+        a.record(200);
+        LatencyHistogram b = new LatencyHistogram();
+        b.record(90_000);
+        b.record(90_000);
+
+        a.add(b);
+
+        assertEquals(3, a.count());
+        assertEquals(90_000, a.max());
+        assertEquals(90_000, a.percentile(0.5));
+    }
+
+    @Test
+    public void percentile_emptyHistogramIsZero() {
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.geotracker;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Embedded stand-in for the HTTP sync backend. Stores the ids of every record it accepts and can
+ * be told to fail the next requests with a given status.
+ */
+class MockSyncServer implements AutoCloseable {
+    private static final Pattern RECORD_ID = Pattern.compile("\\{\"id\":\"([^\"]*)\"");
+
+    private final HttpServer server;
+    private final Set<String> documentIds = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus = 503;
+
+    MockSyncServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/sync", exchange -> {
+            byte[] compressed = readAll(exchange.getRequestBody());
+            int status = 200;
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                status = failureStatus;
+            } else {
+                String json = new String(readAll(new GZIPInputStream(
+                        new ByteArrayInputStream(compressed))), StandardCharsets.UTF_8);
+                Matcher matcher = RECORD_ID.matcher(json);
+                while (matcher.find()) {
+                    documentIds.add(matcher.group(1));
+                }
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    URL endpoint() throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/sync");
+    }
+
+    void failNext(int requests, int status) {
+        failureStatus = status;
+        failuresLeft.set(requests);
+    }
+
+    Set<String> documentIds() {
+        return documentIds;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class OfficeFootprintTest {
+    private static final double LAT = 28.720126;
+    private static final double LON = 77.0822006;
+    private static final double METERS_PER_DEGREE = 111_195;
+
+    private final Random random = new Random(20);
+
+    // An L-shaped block, ~200 m on its long sides, with the north-east quarter cut out
+    private static final OfficeFootprint L_SHAPE = OfficeFootprint.of(List.of(new double[]{
+            LAT, LON,
+            LAT, LON + 0.002,
+            LAT + 0.001, LON + 0.002,
+            LAT + 0.001, LON + 0.001,
+            LAT + 0.002, LON + 0.001,
+            LAT + 0.002, LON}));
+
+    @Test
+    public void contains_concaveOutline() {
+        assertTrue(L_SHAPE.contains(LAT + 0.0005, LON + 0.0015));
+        assertTrue(L_SHAPE.contains(LAT + 0.0015, LON + 0.0005));
+        // The notch
+        assertFalse(L_SHAPE.contains(LAT + 0.0015, LON + 0.0015));
+        assertFalse(L_SHAPE.contains(LAT - 0.0001, LON + 0.0005));
+        assertFalse(L_SHAPE.contains(LAT + 0.0005, LON + 0.0021));
+    }
+
+    @Test
+    public void contains_courtyardIsOutside() {
+        OfficeFootprint withCourtyard = OfficeFootprint.of(List.of(
+                square(LAT, LON, 0.002),
+                square(LAT + 0.0007, LON + 0.0007, 0.0006)));
+
+        assertTrue(withCourtyard.contains(LAT + 0.0003, LON + 0.0003));
+        assertFalse(withCourtyard.contains(LAT + 0.001, LON + 0.001));
+        assertEquals(2, withCourtyard.ringCount());
+    }
+
+    @Test
+    public void contains_matchesUnindexedRayCast() {
+        for (int shape = 0; shape < 50; shape++) {
+            double[] ring = randomStar(40 + random.nextInt(200));
+            OfficeFootprint footprint = OfficeFootprint.of(List.of(ring));
+            for (int i = 0; i < 2000; i++) {
+                double lat = LAT + (random.nextDouble() - 0.5) * 0.01;
+                double lon = LON + (random.nextDouble() - 0.5) * 0.01;
+                assertEquals("shape " + shape + " at " + lat + "," + lon,
+                        rayCast(ring, lat, lon), footprint.contains(lat, lon));
+            }
+        }
+    }
+
+    @Test
+    public void distanceToBoundary_matchesEveryEdgeScan() {
+        for (int shape = 0; shape < 20; shape++) {
+            double[] ring = randomStar(30 + random.nextInt(300));
+            OfficeFootprint footprint = OfficeFootprint.of(List.of(ring));
+            for (int i = 0; i < 500; i++) {
+                double lat = LAT + (random.nextDouble() - 0.5) * 0.02;
+                double lon = LON + (random.nextDouble() - 0.5) * 0.02;
+                double expected = nearestEdgeMeters(ring, lat, lon);
+                assertEquals(expected, footprint.distanceToBoundaryMeters(lat, lon), 1e-6);
+                assertEquals(expected <= 30, footprint.isNearBoundary(lat, lon, 30));
+            }
+        }
+    }
+
+    @Test
+    public void classify_withholdsVerdictWhileAccuracyStraddlesTheEdge() {
+        // ~11 m inside the south wall
+        double lat = LAT + 0.0001;
+        double lon = LON + 0.0015;
+
+        assertEquals(OfficeFootprint.Verdict.INSIDE, L_SHAPE.classify(lat, lon, 5));
+        assertEquals(OfficeFootprint.Verdict.UNCERTAIN, L_SHAPE.classify(lat, lon, 20));
+        assertEquals(OfficeFootprint.Verdict.OUTSIDE, L_SHAPE.classify(LAT - 0.0005, lon, 20));
+        assertEquals(OfficeFootprint.Verdict.INSIDE, L_SHAPE.classify(lat, lon, Float.NaN));
+    }
+
+    @Test
+    public void encode_roundTrips() {
+        OfficeFootprint withCourtyard = OfficeFootprint.of(List.of(
+                square(LAT, LON, 0.002),
+                square(LAT + 0.0007, LON + 0.0007, 0.0006)));
+
+        OfficeFootprint parsed = OfficeFootprint.parse(withCourtyard.encode());
+
+        assertEquals(withCourtyard.encode(), parsed.encode());
+        assertEquals(withCourtyard.ringCount(), parsed.ringCount());
+        assertEquals(LAT + 0.0007, parsed.latitude(1, 0), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsDegenerateRing() {
+        OfficeFootprint.parse("28.72,77.08 28.73,77.08");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsMissingComma() {
+        OfficeFootprint.parse("28.72,77.08 28.73 77.08 28.72,77.09");
+    }
+
+    @Test
+    public void enclosingCircle_holdsEveryVertex() {
+        double radius = L_SHAPE.enclosingRadiusMeters();
+        for (int i = 0; i < L_SHAPE.ringSize(0); i++) {
+            assertTrue(GeoMath.distanceMeters(L_SHAPE.centerLatitude(), L_SHAPE.centerLongitude(),
+                    L_SHAPE.latitude(0, i), L_SHAPE.longitude(0, i)) <= radius + 1e-6);
+        }
+        Office office = Office.withFootprint("L", L_SHAPE);
+        assertTrue(office.contains(LAT + 0.0005, LON + 0.0015));
+        assertFalse(office.contains(LAT + 0.0015, LON + 0.0015));
+        assertEquals(radius + Office.FOOTPRINT_TRIGGER_MARGIN_METERS, office.radiusMeters, 0.01);
+    }
+
+    @Test
+    public void adaptiveSampling_measuresTheEdgeFromTheOutline() {
+        Office office = Office.withFootprint("L", L_SHAPE);
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(office.latitude, office.longitude,
+                office.radiusMeters, office.outline());
+        // Inside the notch corner: close to the outline, though well inside the trigger circle
+        double lat = LAT + 0.0009;
+        double lon = LON + 0.0009;
+        long start = 1_700_000_000_000L;
+        for (long t = 0; t <= 30 * 60_000; t += 30_000) {
+            policy.onFix(lat, lon, 5, 0, start + t);
+        }
+        assertEquals(AdaptiveSamplingPolicy.Mode.HIGH, policy.getMode());
+    }
+
+    @Test
+    public void benchmark_fixesPerSecond() {
+        assumeTrue(Benchmark.ENABLED);
+        double[] ring = randomStar(500);
+        OfficeFootprint footprint = OfficeFootprint.of(List.of(ring));
+        double[] lats = new double[100_000];
+        double[] lons = new double[lats.length];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = LAT + (random.nextDouble() - 0.5) * 0.01;
+            lons[i] = LON + (random.nextDouble() - 0.5) * 0.01;
+        }
+        int sink = 0;
+        for (int warm = 0; warm < 3; warm++) {
+            for (int i = 0; i < lats.length; i++) {
+                sink += footprint.classify(lats[i], lons[i], 10).ordinal();
+                sink += rayCast(ring, lats[i], lons[i]) ? 1 : 0;
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < lats.length; i++) {
+            sink += footprint.contains(lats[i], lons[i]) ? 1 : 0;
+        }
+        long indexedNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < lats.length; i++) {
+            sink += footprint.classify(lats[i], lons[i], 10).ordinal();
+        }
+        long classifyNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < lats.length; i++) {
+            sink += rayCast(ring, lats[i], lons[i]) ? 1 : 0;
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        Benchmark.report("500-vertex outline, %d bands: contains %.0f fixes/s, classify %.0f fixes/s, unindexed %.0f fixes/s (%d)%n",
+                footprint.bandCount(), lats.length * 1e9 / indexedNanos, lats.length * 1e9 / classifyNanos,
+                lats.length * 1e9 / scanNanos, sink);
+        assertTrue(sink > 0);
+    }
+
+    private static double[] square(double lat, double lon, double side) {
+        return new double[]{lat, lon, lat, lon + side, lat + side, lon + side, lat + side, lon};
+    }
+
+    // Star-shaped, heavily concave outline of about 150-400 m around the office
+    private double[] randomStar(int vertices) {
+        double[] ring = new double[vertices * 2];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double radius = (150 + random.nextDouble() * 250) / METERS_PER_DEGREE;
+            ring[2 * i] = LAT + radius * Math.sin(angle);
+            ring[2 * i + 1] = LON + radius * Math.cos(angle) / Math.cos(Math.toRadians(LAT));
+        }
+        return ring;
+    }
+
+    private static boolean rayCast(double[] ring, double lat, double lon) {
+        boolean inside = false;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double lat1 = ring[2 * j], lon1 = ring[2 * j + 1];
+            double lat2 = ring[2 * i], lon2 = ring[2 * i + 1];
+            if ((lat1 > lat) != (lat2 > lat)
+                    && lon1 + (lat - lat1) / (lat2 - lat1) * (lon2 - lon1) > lon) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static double nearestEdgeMeters(double[] ring, double lat, double lon) {
+        double metersPerDegree = GeoMath.EARTH_RADIUS_METERS * Math.PI / 180;
+        double metersPerDegreeLon = metersPerDegree * Math.cos(Math.toRadians(lat));
+        double best = Double.POSITIVE_INFINITY;
+        int n = ring.length / 2;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            double ax = (ring[2 * i + 1] - lon) * metersPerDegreeLon;
+            double ay = (ring[2 * i] - lat) * metersPerDegree;
+            double bx = (ring[2 * next + 1] - lon) * metersPerDegreeLon;
+            double by = (ring[2 * next] - lat) * metersPerDegree;
+            double dx = bx - ax, dy = by - ay;
+            double t = Math.max(0, Math.min(1, -(ax * dx + ay * dy) / (dx * dx + dy * dy)));
+            best = Math.min(best, Math.hypot(ax + t * dx, ay + t * dy));
+        }
+        return best;
+    }
+}
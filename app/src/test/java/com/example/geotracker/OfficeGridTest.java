@@ -0,0 +1,179 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class OfficeGridTest {
+    private static final double MAX_METERS = 100_000;
+
+    private final Random random = new Random(19);
+
+    @Test
+    public void nearest_matchesBruteForce() {
+        List<Office> offices = new ArrayList<>();
+        // Dense metro clusters plus a sprinkle across the globe
+        for (int i = 0; i < 5000; i++) {
+            Office office;
+            if (i % 5 == 0) {
+                office = new Office("o" + i, random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180, 150);
+            } else {
+                office = new Office("o" + i, 28.6 + random.nextGaussian() * 0.3, 77.2 + random.nextGaussian() * 0.3, 150);
+            }
+            office.id = i + 1;
+            offices.add(office);
+        }
+        CountingSource source = new CountingSource(offices);
+
+        for (int q = 0; q < 500; q++) {
+            double lat = q % 2 == 0 ? 28.6 + random.nextGaussian() * 0.5 : random.nextDouble() * 140 - 70;
+            double lon = q % 2 == 0 ? 77.2 + random.nextGaussian() * 0.5 : random.nextDouble() * 360 - 180;
+            int n = 1 + random.nextInt(20);
+            assertEquals("query " + q, ids(bruteForce(offices, lat, lon, n)),
+                    ids(OfficeGrid.nearest(source, lat, lon, n, MAX_METERS)));
+        }
+    }
+
+    @Test
+    public void nearest_findsOfficesAcrossTheDateline() {
+        Office east = office(1, 0.1, 179.99);
+        Office west = office(2, 0.1, -179.99);
+        Office far = office(3, 0.1, 178.0);
+        CountingSource source = new CountingSource(List.of(east, west, far));
+
+        List<Office> found = OfficeGrid.nearest(source, 0.1, -179.995, 5, MAX_METERS);
+
+        assertEquals(List.of(2, 1), ids(found));
+    }
+
+    @Test
+    public void ringKeys_wrapAtTheDateline() {
+        int row = OfficeGrid.row(0);
+        int col = OfficeGrid.col(179.99);
+
+        List<Long> keys = OfficeGrid.ringKeys(row, col, 1);
+
+        assertEquals(8, keys.size());
+        assertTrue(keys.contains(OfficeGrid.cellKey(0, -179.99)));
+        assertEquals(1, OfficeGrid.ringKeys(row, col, 0).size());
+    }
+
+    @Test
+    public void nearest_respectsMaxDistance() {
+        CountingSource source = new CountingSource(List.of(office(1, 28.72, 77.08), office(2, 30.0, 77.08)));
+
+        assertEquals(List.of(1), ids(OfficeGrid.nearest(source, 28.72, 77.08, 5, MAX_METERS)));
+    }
+
+    @Test
+    public void nearest_stopsEarlyInDenseArea() {
+        List<Office> offices = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Office office = office(i + 1, 28.6 + random.nextGaussian() * 0.3, 77.2 + random.nextGaussian() * 0.3);
+            offices.add(office);
+        }
+        CountingSource source = new CountingSource(offices);
+
+        OfficeGrid.nearest(source, 28.6, 77.2, 20, MAX_METERS);
+
+        // A 100 km radius is ~1500 cells; the 20 nearest sit in the first couple of rings
+        assertTrue("visited " + source.cellsVisited, source.cellsVisited < 100);
+    }
+
+    @Test
+    public void benchmark_lookupVersusLinearScan() {
+        assumeTrue(Benchmark.ENABLED);
+        List<Office> offices = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            offices.add(office(i + 1, 28.6 + random.nextGaussian() * 0.3, 77.2 + random.nextGaussian() * 0.3));
+        }
+        CountingSource source = new CountingSource(offices);
+        double[][] queries = new double[300][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new double[]{28.6 + random.nextGaussian() * 0.3, 77.2 + random.nextGaussian() * 0.3};
+        }
+
+        int sink = 0;
+        for (int warm = 0; warm < 2; warm++) {
+            for (double[] q : queries) {
+                sink += OfficeGrid.nearest(source, q[0], q[1], 20, MAX_METERS).size();
+                sink += bruteForce(offices, q[0], q[1], 20).size();
+            }
+        }
+
+        long start = System.nanoTime();
+        for (double[] q : queries) {
+            sink += OfficeGrid.nearest(source, q[0], q[1], 20, MAX_METERS).size();
+        }
+        long gridNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (double[] q : queries) {
+            sink += bruteForce(offices, q[0], q[1], 20).size();
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        Benchmark.report("nearest-20 of %d offices: grid %.1f us/query, linear scan %.1f us/query (%d)%n",
+                offices.size(), gridNanos / 1000.0 / queries.length, scanNanos / 1000.0 / queries.length, sink);
+        assertTrue(sink > 0);
+    }
+
+    private static Office office(int id, double lat, double lon) {
+        Office office = new Office("o" + id, lat, lon, 150);
+        office.id = id;
+        return office;
+    }
+
+    private static List<Office> bruteForce(List<Office> offices, double lat, double lon, int n) {
+        Map<Office, Double> within = new HashMap<>();
+        for (Office office : offices) {
+            double distance = GeoMath.distanceMeters(lat, lon, office.latitude, office.longitude);
+            if (distance <= MAX_METERS) {
+                within.put(office, distance);
+            }
+        }
+        List<Office> sorted = new ArrayList<>(within.keySet());
+        sorted.sort(Comparator.comparingDouble(within::get));
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    private static List<Integer> ids(List<Office> offices) {
+        List<Integer> ids = new ArrayList<>();
+        for (Office office : offices) {
+            ids.add(office.id);
+        }
+        return ids;
+    }
+
+    // In-memory stand-in for the offices table, keyed like the cellKey index
+    private static class CountingSource implements OfficeGrid.CellSource {
+        private final Map<Long, List<Office>> cells = new HashMap<>();
+        int cellsVisited;
+
+        CountingSource(List<Office> offices) {
+            for (Office office : offices) {
+                cells.computeIfAbsent(office.cellKey, k -> new ArrayList<>()).add(office);
+            }
+        }
+
+        @Override
+        public List<Office> officesIn(List<Long> cellKeys) {
+            List<Office> result = new ArrayList<>();
+            for (Long key : cellKeys) {
+                cellsVisited++;
+                List<Office> cell = cells.get(key);
+                if (cell != null) {
+                    result.addAll(cell);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OfficeWifiPresenceTest {
+    private static final int HQ = 1;
+    private static final int ANNEX = 2;
+    private static final int NONE = BssidIndex.NO_OFFICE;
+
+    private final OfficeWifiPresence presence = new OfficeWifiPresence();
+    // isOnOfficeWifi() as each listener call saw it
+    private final List<Boolean> changes = new ArrayList<>();
+
+    public OfficeWifiPresenceTest() {
+        presence.addListener(() -> changes.add(presence.isOnOfficeWifi()));
+    }
+
+    @Test
+    public void unknownUntilSeededOrAnEventArrives() {
+        assertFalse(presence.isKnown());
+        assertFalse(presence.isOnOfficeWifi());
+
+        presence.seed(NONE);
+
+        assertTrue(presence.isKnown());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void connectAndDisconnect_notifyOnceEach() {
+        presence.onNetwork(100, HQ);
+        presence.onNetwork(100, HQ);
+        presence.onLost(100);
+
+        assertEquals(List.of(true, false), changes);
+        assertFalse(presence.isOnOfficeWifi());
+    }
+
+    @Test
+    public void roamingToAnotherNetwork_isJudgedOnTheNewOne() {
+        presence.onNetwork(100, HQ);
+        // Capabilities update for the same network after roaming to a foreign access point
+        presence.onNetwork(100, NONE);
+
+        assertEquals(List.of(true, false), changes);
+    }
+
+    @Test
+    public void losingOneNetwork_keepsAnotherOfficeNetwork() {
+        presence.onNetwork(100, HQ);
+        presence.onNetwork(200, HQ);
+
+        presence.onLost(100);
+
+        assertTrue(presence.isOnOfficeWifi());
+        assertEquals(List.of(true), changes);
+    }
+
+    @Test
+    public void seed_isIgnoredOnceEventsTakeOver() {
+        presence.seed(HQ);
+        presence.onLost(100);
+        presence.seed(HQ);
+
+        assertFalse(presence.isOnOfficeWifi());
+        assertEquals(List.of(true, false), changes);
+    }
+
+    @Test
+    public void removedListener_isNotCalled() {
+        List<Boolean> other = new ArrayList<>();
+        OfficeWifiPresence.Listener listener = () -> other.add(true);
+        presence.addListener(listener);
+        presence.removeListener(listener);
+
+        presence.onNetwork(100, HQ);
+
+        assertTrue(other.isEmpty());
+        assertEquals(List.of(true), changes);
+    }
+
+    @Test
+    public void anotherOfficesAccessPoint_doesNotCountForThisOffice() {
+        presence.onNetwork(100, ANNEX);
+
+        assertTrue(presence.isOnOfficeWifi());
+        assertTrue(presence.isOnOfficeWifi(ANNEX));
+        assertFalse(presence.isOnOfficeWifi(HQ));
+        assertFalse(presence.isOnOfficeWifi(NONE));
+    }
+
+    @Test
+    public void seededOffice_isMatchedById() {
+        presence.seed(ANNEX);
+
+        assertTrue(presence.isOnOfficeWifi(ANNEX));
+        assertFalse(presence.isOnOfficeWifi(HQ));
+        assertEquals(List.of(true), changes);
+    }
+
+    @Test
+    public void roamingFromOneOfficeToAnother_notifiesThoughStillOnOfficeWifi() {
+        List<Boolean> onHq = new ArrayList<>();
+        presence.addListener(() -> onHq.add(presence.isOnOfficeWifi(HQ)));
+
+        presence.onNetwork(100, HQ);
+        // Same network, now through the annex's access point: a session at HQ has lost its WiFi
+        presence.onNetwork(100, ANNEX);
+
+        assertEquals(List.of(true, true), changes);
+        assertEquals(List.of(true, false), onHq);
+        assertTrue(presence.isOnOfficeWifi(ANNEX));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TrackCodecTest {
+    private static final double OFFICE_LAT = 28.720126;
+    private static final double OFFICE_LON = 77.0822006;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void encodeDecode_roundTripsWithinGridPrecision() {
+        List<TrackCodec.TrackPoint> points = syntheticWorkday(2_000, 3_000, 1.5);
+
+        List<TrackCodec.TrackPoint> decoded = TrackCodec.decode(TrackCodec.encode(points));
+
+        assertEquals(points.size(), decoded.size());
+        for (int i = 0; i < points.size(); i++) {
+            TrackCodec.TrackPoint expected = points.get(i);
+            TrackCodec.TrackPoint actual = decoded.get(i);
+            // 1e-5 degree grid: at most ~0.8 m off diagonally
+            assertTrue(TrackCodec.distanceToSegment(expected, actual, actual) < 1.0);
+            assertEquals(expected.timeMillis, actual.timeMillis, 500);
+        }
+    }
+
+    @Test
+    public void compress_keepsEveryFixWithinToleranceOfDecodedTrack() {
+        List<TrackCodec.TrackPoint> points = syntheticWorkday(10_000, 3_000, 1.5);
+
+        List<TrackCodec.TrackPoint> decoded = TrackCodec.decode(TrackCodec.compress(points));
+
+        assertEquals(points.get(0).timeMillis, decoded.get(0).timeMillis, 500);
+        assertEquals(points.get(points.size() - 1).timeMillis, decoded.get(decoded.size() - 1).timeMillis, 500);
+        double allowed = TrackCodec.DEFAULT_TOLERANCE_METERS + 1.0;
+        for (TrackCodec.TrackPoint point : points) {
+            assertTrue("Fix drifted more than " + allowed + " m", distanceToTrack(point, decoded) <= allowed);
+        }
+    }
+
+    @Test
+    public void compress_isAnOrderOfMagnitudeSmallerThanRawFixes() {
+        List<TrackCodec.TrackPoint> points = syntheticWorkday(10_000, 3_000, 1.5);
+
+        byte[] blob = TrackCodec.compress(points);
+
+        // lat + lon doubles, accuracy float, time long per stored breadcrumb
+        int rawBytes = points.size() * (8 + 8 + 4 + 8);
+        assertTrue("Compressed to " + blob.length + " of " + rawBytes + " bytes", blob.length * 10 < rawBytes);
+    }
+
+    @Test
+    public void encode_handlesEmptyAndSinglePointTracks() {
+        assertTrue(TrackCodec.decode(TrackCodec.encode(new ArrayList<>())).isEmpty());
+
+        List<TrackCodec.TrackPoint> single = new ArrayList<>();
+        single.add(new TrackCodec.TrackPoint(-33.8688, 151.2093, START));
+        List<TrackCodec.TrackPoint> decoded = TrackCodec.decode(TrackCodec.compress(single));
+        assertEquals(1, decoded.size());
+        assertEquals(-33.8688, decoded.get(0).latitude, 1e-5);
+        assertEquals(151.2093, decoded.get(0).longitude, 1e-5);
+    }
+
+    // Long stationary stretches at a desk with GPS noise, broken up by short walks
+    private static List<TrackCodec.TrackPoint> syntheticWorkday(int count, long intervalMillis, double noiseMeters) {
+        Random random = new Random(42);
+        double metersPerDegLat = 111_320.0;
+        double metersPerDegLon = metersPerDegLat * Math.cos(Math.toRadians(OFFICE_LAT));
+
+        List<TrackCodec.TrackPoint> points = new ArrayList<>(count);
+        double x = 0;
+        double y = 0;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            boolean walking = (i / 200) % 5 == 0;
+            if (walking) {
+                heading += random.nextGaussian() * 0.2;
+                x += Math.cos(heading) * 1.4 * intervalMillis / 1000.0;
+                y += Math.sin(heading) * 1.4 * intervalMillis / 1000.0;
+            }
+            double nx = x + random.nextGaussian() * noiseMeters;
+            double ny = y + random.nextGaussian() * noiseMeters;
+            points.add(new TrackCodec.TrackPoint(
+                    OFFICE_LAT + ny / metersPerDegLat,
+                    OFFICE_LON + nx / metersPerDegLon,
+                    START + i * intervalMillis));
+        }
+        return points;
+    }
+
+    private static double distanceToTrack(TrackCodec.TrackPoint point, List<TrackCodec.TrackPoint> track) {
+        double best = Double.MAX_VALUE;
+        for (int i = 1; i < track.size(); i++) {
+            best = Math.min(best, TrackCodec.distanceToSegment(point, track.get(i - 1), track.get(i)));
+        }
+        return track.size() == 1 ? TrackCodec.distanceToSegment(point, track.get(0), track.get(0)) : best;
+    }
+}
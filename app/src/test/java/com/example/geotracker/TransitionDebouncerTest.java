@@ -0,0 +1,234 @@
+package com.example.geotracker;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TransitionDebouncerTest {
+    private static final double OFFICE_LAT = 28.720126;
+    private static final double OFFICE_LON = 77.0822006;
+    private static final float RADIUS = 150;
+    private static final double METERS_PER_DEGREE_LAT = 111_195;
+    private static final long START = 1_700_000_000_000L;
+    private static final int OFFICE = 1;
+
+    private static final TransitionDebouncer.Config CONFIG = TransitionDebouncer.Config.DEFAULT;
+
+    private final TransitionDebouncer debouncer = new TransitionDebouncer(CONFIG);
+    private final Office office = office();
+    private final Random random = new Random(21);
+
+    @Test
+    public void enter_waitsForDwellBeforeCheckingIn() {
+        assertEquals(TransitionDebouncer.Action.NONE, debouncer.onEnter(OFFICE, START));
+        assertEquals(TransitionDebouncer.Action.NONE, debouncer.onFix(OFFICE, TransitionDebouncer.Zone.INNER, START + 60_000));
+        assertEquals(TransitionDebouncer.State.ARRIVING, debouncer.getState());
+
+        assertEquals(TransitionDebouncer.Action.CHECK_IN,
+                debouncer.onFix(OFFICE, TransitionDebouncer.Zone.INNER, START + CONFIG.dwellMillis));
+        assertEquals(TransitionDebouncer.State.INSIDE, debouncer.getState());
+    }
+
+    @Test
+    public void bandFixes_neitherConfirmNorCancelArrival() {
+        debouncer.onEnter(OFFICE, START);
+
+        assertEquals(TransitionDebouncer.Action.NONE,
+                debouncer.onFix(OFFICE, TransitionDebouncer.Zone.BAND, START + 2 * CONFIG.dwellMillis));
+        assertEquals(TransitionDebouncer.State.ARRIVING, debouncer.getState());
+    }
+
+    @Test
+    public void outerFix_callsArrivalOff() {
+        debouncer.onEnter(OFFICE, START);
+        debouncer.onFix(OFFICE, TransitionDebouncer.Zone.OUTER, START + 30_000);
+
+        assertEquals(TransitionDebouncer.State.OUTSIDE, debouncer.getState());
+        assertEquals(TransitionDebouncer.Action.NONE,
+                debouncer.onFix(OFFICE, TransitionDebouncer.Zone.INNER, START + CONFIG.dwellMillis));
+    }
+
+    @Test
+    public void playExit_doesNotCallArrivalOff() {
+        debouncer.onEnter(OFFICE, START);
+        debouncer.onExit(OFFICE, START + 30_000);
+
+        assertEquals(TransitionDebouncer.State.ARRIVING, debouncer.getState());
+        assertEquals(TransitionDebouncer.Action.CHECK_IN,
+                debouncer.onFix(OFFICE, TransitionDebouncer.Zone.INNER, START + CONFIG.dwellMillis));
+    }
+
+    @Test
+    public void playDwell_checksInImmediately() {
+        debouncer.onEnter(OFFICE, START);
+
+        assertEquals(TransitionDebouncer.Action.CHECK_IN, debouncer.onDwell(OFFICE, START + 1_000));
+        assertEquals(TransitionDebouncer.Action.NONE, debouncer.onDwell(OFFICE, START + 2_000));
+    }
+
+    @Test
+    public void exitThenReturnWithinGrace_keepsTheSession() {
+        checkedIn();
+        debouncer.onExit(OFFICE, START + 60_000);
+        assertEquals(TransitionDebouncer.State.LEAVING, debouncer.getState());
+
+        debouncer.onFix(OFFICE, TransitionDebouncer.Zone.INNER, START + 120_000);
+
+        assertEquals(TransitionDebouncer.State.INSIDE, debouncer.getState());
+        assertEquals(TransitionDebouncer.Action.NONE, debouncer.tick(START + 60_000 + CONFIG.graceMillis));
+    }
+
+    @Test
+    public void exitAndStayAway_checksOutWhenGraceExpires() {
+        checkedIn();
+        debouncer.onExit(OFFICE, START + 60_000);
+
+        assertEquals(START + 60_000 + CONFIG.graceMillis, debouncer.nextDeadline());
+        assertEquals(TransitionDebouncer.Action.NONE, debouncer.tick(START + 60_000 + CONFIG.graceMillis - 1));
+        assertEquals(TransitionDebouncer.Action.NONE,
+                debouncer.onFix(OFFICE, TransitionDebouncer.Zone.BAND, START + 5 * 60_000));
+        assertEquals(TransitionDebouncer.Action.CHECK_OUT, debouncer.tick(START + 60_000 + CONFIG.graceMillis));
+        assertEquals(TransitionDebouncer.State.OUTSIDE, debouncer.getState());
+        assertEquals(-1, debouncer.nextDeadline());
+    }
+
+    @Test
+    public void otherOfficesEvents_doNotTouchTheSession() {
+        checkedIn();
+
+        debouncer.onExit(2, START + 60_000);
+        debouncer.onFix(2, TransitionDebouncer.Zone.OUTER, START + 60_000);
+        debouncer.onEnter(2, START + 60_000);
+
+        assertEquals(TransitionDebouncer.State.INSIDE, debouncer.getState());
+        assertEquals(OFFICE, debouncer.getOfficeId());
+    }
+
+    @Test
+    public void onCheckedIn_keepsAPendingExit() {
+        checkedIn();
+        debouncer.onExit(OFFICE, START + 60_000);
+
+        debouncer.onCheckedIn(OFFICE, START + 90_000);
+
+        assertEquals(TransitionDebouncer.State.LEAVING, debouncer.getState());
+        assertEquals(START + 60_000, debouncer.getSince());
+    }
+
+    @Test
+    public void encode_roundTripsAndSurvivesGarbage() {
+        checkedIn();
+        debouncer.onExit(OFFICE, START + 60_000);
+
+        TransitionDebouncer restored = TransitionDebouncer.decode(debouncer.encode(), CONFIG);
+
+        assertEquals(TransitionDebouncer.State.LEAVING, restored.getState());
+        assertEquals(OFFICE, restored.getOfficeId());
+        assertEquals(debouncer.nextDeadline(), restored.nextDeadline());
+        assertEquals(TransitionDebouncer.State.OUTSIDE, TransitionDebouncer.decode("LEAVING|x", CONFIG).getState());
+        assertEquals(TransitionDebouncer.State.OUTSIDE, TransitionDebouncer.decode(null, CONFIG).getState());
+    }
+
+    @Test
+    public void zoneOf_circle() {
+        assertEquals(TransitionDebouncer.Zone.INNER, zoneAt(80, 10));
+        // Inside the fence, but the accuracy reaches past the inner radius
+        assertEquals(TransitionDebouncer.Zone.BAND, zoneAt(110, 20));
+        assertEquals(TransitionDebouncer.Zone.BAND, zoneAt(180, 10));
+        assertEquals(TransitionDebouncer.Zone.OUTER, zoneAt(230, 10));
+        assertEquals(TransitionDebouncer.Zone.INNER, zoneAt(80, Float.NaN));
+    }
+
+    @Test
+    public void zoneOf_footprintUsesTheOutline() {
+        // 200 m square; its enclosing trigger circle reaches well past the corners
+        double side = 200 / METERS_PER_DEGREE_LAT;
+        double sideLon = side / Math.cos(Math.toRadians(OFFICE_LAT));
+        Office square = Office.withFootprint("Square", OfficeFootprint.of(List.of(new double[]{
+                OFFICE_LAT, OFFICE_LON,
+                OFFICE_LAT, OFFICE_LON + sideLon,
+                OFFICE_LAT + side, OFFICE_LON + sideLon,
+                OFFICE_LAT + side, OFFICE_LON})));
+
+        assertEquals(TransitionDebouncer.Zone.INNER, TransitionDebouncer.zoneOf(square,
+                OFFICE_LAT + side / 2, OFFICE_LON + sideLon / 2, 10, CONFIG));
+        // 20 m outside the south wall: inside the trigger circle, but only in the band
+        assertEquals(TransitionDebouncer.Zone.BAND, TransitionDebouncer.zoneOf(square,
+                OFFICE_LAT - 20 / METERS_PER_DEGREE_LAT, OFFICE_LON + sideLon / 2, 10, CONFIG));
+        assertEquals(TransitionDebouncer.Zone.OUTER, TransitionDebouncer.zoneOf(square,
+                OFFICE_LAT - 100 / METERS_PER_DEGREE_LAT, OFFICE_LON + sideLon / 2, 10, CONFIG));
+    }
+
+    // A desk 110 m from the center of a 150 m fence, fixes every 30 s with ~25 m of scatter: the
+    // raw fence flips dozens of times over an afternoon, the debounced one once each way
+    @Test
+    public void jitteryAfternoon_collapsesIntoOneSession() {
+        int rawTransitions = 0;
+        int checkIns = 0;
+        int checkOuts = 0;
+        boolean rawInside = false;
+        long checkInAt = -1;
+        long checkOutAt = -1;
+
+        long t = START;
+        long leaveAt = START + 4 * 3_600_000L;
+        long end = leaveAt + 30 * 60_000;
+        for (; t < end; t += 30_000) {
+            double north;
+            if (t < START + 3 * 60_000) {
+                // Walking in from the street
+                north = 300 - (t - START) / 1000.0 * 1.4;
+            } else if (t < leaveAt) {
+                north = 110 + random.nextGaussian() * 25;
+            } else {
+                north = 110 + (t - leaveAt) / 1000.0 * 1.4;
+            }
+            float accuracy = 10 + random.nextFloat() * 15;
+            double lat = OFFICE_LAT + north / METERS_PER_DEGREE_LAT;
+
+            boolean inside = GeoMath.distanceMeters(OFFICE_LAT, OFFICE_LON, lat, OFFICE_LON) <= RADIUS;
+            TransitionDebouncer.Action action = TransitionDebouncer.Action.NONE;
+            if (inside != rawInside) {
+                rawInside = inside;
+                rawTransitions++;
+                action = inside ? debouncer.onEnter(OFFICE, t) : debouncer.onExit(OFFICE, t);
+            }
+            if (action == TransitionDebouncer.Action.NONE) {
+                action = debouncer.onFix(OFFICE, TransitionDebouncer.zoneOf(office, lat, OFFICE_LON, accuracy, CONFIG), t);
+            }
+            if (action == TransitionDebouncer.Action.CHECK_IN) {
+                checkIns++;
+                checkInAt = t;
+            } else if (action == TransitionDebouncer.Action.CHECK_OUT) {
+                checkOuts++;
+                checkOutAt = t;
+            }
+        }
+
+        assertTrue("raw transitions " + rawTransitions, rawTransitions >= 20);
+        assertEquals(1, checkIns);
+        assertEquals(1, checkOuts);
+        assertTrue(checkInAt - START <= 10 * 60_000);
+        assertTrue(checkOutAt > leaveAt);
+        assertTrue(checkOutAt - leaveAt <= CONFIG.graceMillis + 5 * 60_000);
+    }
+
+    private void checkedIn() {
+        debouncer.onEnter(OFFICE, START - CONFIG.dwellMillis);
+        assertEquals(TransitionDebouncer.Action.CHECK_IN, debouncer.onDwell(OFFICE, START));
+    }
+
+    private TransitionDebouncer.Zone zoneAt(double northMeters, float accuracy) {
+        return TransitionDebouncer.zoneOf(office, OFFICE_LAT + northMeters / METERS_PER_DEGREE_LAT, OFFICE_LON,
+                accuracy, CONFIG);
+    }
+
+    private static Office office() {
+        Office office = new Office("Headquarters", OFFICE_LAT, OFFICE_LON, RADIUS);
+        office.id = OFFICE;
+        return office;
+    }
+}